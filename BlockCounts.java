@@ -0,0 +1,67 @@
+import java.util.Arrays;
+
+// Live entries per block of slots, kept in a Fenwick tree so both the block holding the n-th live entry
+// and the number of live entries before a block are found in O(log blocks) instead of walking every block
+public class BlockCounts {
+    private int[] counts = new int[16]; // Block -> live entries in it, length a power of two
+    private int[] tree = new int[17]; // Fenwick tree over counts, 1-based
+
+    // Method to change the live count of a block
+    public void add(int block, int delta) {
+        if (block >= counts.length) {
+            grow(block);
+        }
+        counts[block] += delta;
+        for (int i = block + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Method to set the live count of a block, used after recounting it
+    public void set(int block, int count) {
+        add(block, count - get(block));
+    }
+
+    // Method to get the live count of a block
+    public int get(int block) {
+        return block < counts.length ? counts[block] : 0;
+    }
+
+    // Method to count the live entries in the blocks before a block
+    public int countBefore(int block) {
+        int count = 0;
+        for (int i = Math.min(block, counts.length); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    // Method to find the block holding the live entry at an index, which must be below the total
+    public int blockOf(int index) {
+        int block = 0;
+        for (int step = counts.length; step > 0; step >>= 1) { // Descend the tree, skipping every range that ends at or before the index
+            if (tree[block + step] <= index) {
+                block += step;
+                index -= tree[block];
+            }
+        }
+        return block;
+    }
+
+    // Method to make room for a block, the tree is rebuilt in one pass over the counts
+    private void grow(int block) {
+        int length = counts.length;
+        while (length <= block) {
+            length *= 2;
+        }
+        counts = Arrays.copyOf(counts, length);
+        tree = new int[length + 1];
+        for (int i = 1; i <= length; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
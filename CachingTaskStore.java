@@ -0,0 +1,339 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+// Task store wrapper keeping the results of recent searches, so a repeated search, or a longer term typed after a
+// shorter one, is answered without going back to the store; see TaskStore.share
+// Each change drops only the cached results it could alter: an added task the results whose query it matches,
+// a removed or completed task the results it is in. Changes need ConcurrentTaskStore's exclusive lock; searches run under
+// its shared lock, so the cache itself is guarded by this object's monitor and the store is searched outside it
+public class CachingTaskStore implements TaskStore {
+    private static final int MAX_ENTRIES = 64; // Searches remembered, least recently used forgotten first
+    private static final int MAX_RESULTS = 10_000; // Larger results are not kept, they would hold too many tasks
+    private static final int MAX_CHECKED_CHANGES = 1024; // Changes in one batch checked against the cache before it is simply cleared
+    private static final double SCORE_SLACK = 1e-4; // Ranked scores are summed as floats by the stores
+
+    private enum Kind { SEARCH, PREFIX, RANKED }
+
+    // Results of one search with what is needed to tell which changes affect them
+    private static class Entry {
+        final Kind kind;
+        final String term; // Lowercased as the store compares it
+        final int limit;
+        final List<Task> results; // Unmodifiable, handed out as is
+        final long[] ids; // Ids of the results, sorted
+        final FuzzyQuery fuzzy; // Ranked searches only, to score added tasks
+        final double lowest; // Ranked searches only, score a task must reach to get into full results
+
+        Entry(Kind kind, String term, int limit, List<Task> results) {
+            this.kind = kind;
+            this.term = term;
+            this.limit = limit;
+            this.results = Collections.unmodifiableList(results);
+            ids = new long[results.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = results.get(i).getId();
+            }
+            Arrays.sort(ids);
+            fuzzy = kind == Kind.RANKED ? new FuzzyQuery(term) : null;
+            lowest = fuzzy != null && !results.isEmpty() ? fuzzy.score(results.get(results.size() - 1).getDescription().toLowerCase(Locale.ROOT)) : 0;
+        }
+
+        // Method to check if adding a task could change these results
+        boolean affectedBy(Task task) {
+            String description = task.getDescription().toLowerCase(Locale.ROOT);
+            switch (kind) {
+                case SEARCH:
+                case PREFIX: // A word starting with the prefix contains it, so this never misses
+                    return description.contains(term);
+                default:
+                    double score = fuzzy.score(description);
+                    return score > 0 && (results.size() < limit || score >= lowest - SCORE_SLACK);
+            }
+        }
+
+        // Method to check if a task is among the results
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, id) >= 0;
+        }
+    }
+
+    private final TaskStore tasks; // Store every call is passed on to
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true); // Key -> results, least recently used first
+    private boolean batching; // Inside beginBatch and endBatch
+    private int checkedChanges; // Changes checked against the cache in the current batch
+    private long hits, misses; // Searches answered from the cache, and not
+
+    // Constructor taking the store to cache searches of
+    public CachingTaskStore(TaskStore tasks) {
+        this.tasks = tasks;
+    }
+
+    // Method to get the number of searches answered from the cache, including ones narrowed from a shorter term
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public long add(Task task) {
+        long id = tasks.add(task);
+        synchronized (this) {
+            if (checkCache()) {
+                cache.values().removeIf(entry -> entry.affectedBy(task));
+            }
+        }
+        return id;
+    }
+
+    @Override
+    public Task remove(int index) {
+        dropContaining(tasks.getId(index));
+        return tasks.remove(index);
+    }
+
+    @Override
+    public Task removeById(long id) {
+        dropContaining(id);
+        return tasks.removeById(id);
+    }
+
+    @Override
+    public Task markCompleted(int index) {
+        dropContaining(tasks.getId(index));
+        return tasks.markCompleted(index);
+    }
+
+    @Override
+    public Task markCompletedById(long id) {
+        dropContaining(id);
+        return tasks.markCompletedById(id);
+    }
+
+    @Override
+    public Task markPendingById(long id) {
+        dropContaining(id);
+        return tasks.markPendingById(id);
+    }
+
+    // Putting a task back may shift the ids of the tasks after it, so nothing cached can be trusted; only undo does this
+    @Override
+    public long restore(int index, Task task) {
+        synchronized (this) {
+            cache.clear();
+        }
+        return tasks.restore(index, task);
+    }
+
+    @Override
+    public Task get(int index) {
+        return tasks.get(index);
+    }
+
+    @Override
+    public Task getById(long id) {
+        return tasks.getById(id);
+    }
+
+    @Override
+    public long getId(int index) {
+        return tasks.getId(index);
+    }
+
+    @Override
+    public int indexOf(long id) {
+        return tasks.indexOf(id);
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        String term = query.toLowerCase(Locale.ROOT);
+        String key = Kind.SEARCH + ":" + term;
+        synchronized (this) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.results;
+            }
+            List<Task> narrowed = narrow(term); // Typing one more letter usually lands here
+            if (narrowed != null) {
+                hits++;
+                return remember(key, new Entry(Kind.SEARCH, term, 0, narrowed));
+            }
+            misses++;
+        }
+        return remember(key, new Entry(Kind.SEARCH, term, 0, tasks.search(query)));
+    }
+
+    @Override
+    public List<Task> searchPrefix(String prefix) {
+        String term = prefix.toLowerCase(Locale.ROOT);
+        String key = Kind.PREFIX + ":" + term;
+        Entry entry = lookup(key);
+        if (entry != null) {
+            return entry.results;
+        }
+        return remember(key, new Entry(Kind.PREFIX, term, 0, tasks.searchPrefix(prefix)));
+    }
+
+    @Override
+    public List<Task> searchRanked(String query, int limit) {
+        String term = query.trim().toLowerCase(Locale.ROOT);
+        String key = Kind.RANKED + ":" + limit + ":" + term;
+        Entry entry = lookup(key);
+        if (entry != null) {
+            return entry.results;
+        }
+        return remember(key, new Entry(Kind.RANKED, term, limit, tasks.searchRanked(query, limit)));
+    }
+
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        return tasks.query(query);
+    }
+
+    @Override
+    public int getPriorityCount(Task.Priority priority) {
+        return tasks.getPriorityCount(priority);
+    }
+
+    @Override
+    public int getCompletedCount() {
+        return tasks.getCompletedCount();
+    }
+
+    @Override
+    public int getOverdueCount() {
+        return tasks.getOverdueCount();
+    }
+
+    @Override
+    public List<Task> getOverdueTasks() {
+        return tasks.getOverdueTasks();
+    }
+
+    @Override
+    public List<Task> getUpcoming(int limit) {
+        return tasks.getUpcoming(limit);
+    }
+
+    @Override
+    public void beginBatch() {
+        batching = true;
+        tasks.beginBatch();
+    }
+
+    @Override
+    public void endBatch() {
+        batching = false;
+        checkedChanges = 0;
+        tasks.endBatch();
+    }
+
+    @Override
+    public void addOverdueListener(Consumer<Task> listener) {
+        tasks.addOverdueListener(listener);
+    }
+
+    @Override
+    public void poll() {
+        tasks.poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            cache.clear();
+        }
+        tasks.close();
+    }
+
+    // Method to get cached results, counting the hit or miss
+    private synchronized Entry lookup(String key) {
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    // Method to keep a search's results if they are small enough, returns them either way
+    private synchronized List<Task> remember(String key, Entry entry) {
+        if (entry.results.size() <= MAX_RESULTS) {
+            cache.put(key, entry);
+            if (cache.size() > MAX_ENTRIES) {
+                Iterator<String> eldest = cache.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return entry.results;
+    }
+
+    // Method to answer a substring search from the cached results of a shorter term it starts with, null if there are none
+    // A description containing the longer term contains the shorter one, so filtering those results is enough
+    private List<Task> narrow(String term) {
+        for (int length = term.length() - 1; length > 0; length--) {
+            Entry shorter = cache.get(Kind.SEARCH + ":" + term.substring(0, length));
+            if (shorter == null) {
+                continue;
+            }
+            List<Task> results = new ArrayList<>();
+            for (Task task : shorter.results) {
+                String description = task.getDescription();
+                if (!isAscii(description)) { // Stores differ in how they lowercase other characters, so ask the store
+                    return null;
+                }
+                if (description.toLowerCase(Locale.ROOT).contains(term)) {
+                    results.add(task);
+                }
+            }
+            return results;
+        }
+        return null;
+    }
+
+    // Method to drop the cached results holding a task about to be removed or changed
+    private synchronized void dropContaining(long id) {
+        if (checkCache()) {
+            cache.values().removeIf(entry -> entry.contains(id));
+        }
+    }
+
+    // Method to decide if a change is worth checking against the cache; a large batch clears it instead
+    private boolean checkCache() {
+        if (cache.isEmpty()) {
+            return false;
+        }
+        if (batching && ++checkedChanges > MAX_CHECKED_CHANGES) {
+            cache.clear();
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,733 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Task store that keeps each task field in its own memory-mapped column file, for task sets too large to hold as objects
+public class ColumnarTaskStore implements TaskStore {
+    private static final long MAGIC = 0x53544D4300000001L; // "STMC" and format version 1
+    private static final int BLOCK_SHIFT = 12; // 4096 slots per block of live counts, used to find the slot for an index
+    private static final int MIN_COMPACT_SLOTS = 1 << 16; // Removed slots needed before they are reclaimed
+    private static final long MAX_COLUMN_BYTES = Integer.MAX_VALUE; // A single mapping is limited to 2 GB
+    private static final String GENERATION_PREFIX = "columns-";
+    private static final Task.Priority[] PRIORITIES = Task.Priority.values(); // Priority by stored ordinal
+
+    private final Path directory; // Generation directory holding the column files
+    private final Column meta; // Magic, slot count and description heap size
+    private final Column priorities; // One priority ordinal byte per slot
+    private final Column deadlines; // One epoch-day int per slot
+    private final Column completed; // One bit per slot, set once the task is completed
+    private final Column removed; // One bit per slot, set once the task is removed
+    private final Column offsets; // Start of each description in the heap, followed by the end of the last one
+    private final Column heap; // UTF-8 descriptions back to back
+    private FileChannel lockChannel; // Lock file keeping a second process out
+    private FileLock lock;
+
+    private int slotCount; // Slots written, including removed ones
+    private long heapSize; // Bytes used in the description heap
+    private int size; // Tasks not removed
+    private final int[] priorityCounts = new int[PRIORITIES.length]; // Priority ordinal -> number of tasks
+    private int completedCount; // Number of completed tasks
+    private final BlockCounts blockLive = new BlockCounts(); // Block -> tasks not removed in it
+    private final TaskQueryIndex queryIndex = new TaskQueryIndex(); // Priority, completion and deadline indexes over slots, built on open so queries only read
+    private final TreeMap<Integer, Integer> pendingByDay = new TreeMap<>(); // Deadline day -> tasks neither completed nor removed due that day, so overdue counts never scan the columns
+
+    private final List<Consumer<Task>> overdueListeners = new ArrayList<>(); // Notified when a task becomes overdue
+    private int lastPollDay = Integer.MIN_VALUE; // Day of the last poll, deadlines before it were already reported
+    private int firstUnpolledSlot; // Slots from here on were added after the last poll
+
+    private ColumnarTaskStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        meta = new Column(directory.resolve("meta.col"), 24);
+        priorities = new Column(directory.resolve("priority.col"), 1 << 16);
+        deadlines = new Column(directory.resolve("deadline.col"), 1 << 18);
+        completed = new Column(directory.resolve("completed.bits"), 1 << 13);
+        removed = new Column(directory.resolve("removed.bits"), 1 << 13);
+        offsets = new Column(directory.resolve("offset.col"), 1 << 19);
+        heap = new Column(directory.resolve("description.heap"), 1 << 22);
+        if (meta.buffer.getLong(0) == MAGIC) {
+            slotCount = (int) meta.buffer.getLong(8);
+            heapSize = meta.buffer.getLong(16);
+        }
+        countSlots();
+    }
+
+    // Method to open the column files in a directory
+    public static ColumnarTaskStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve("store.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Tasks in " + directory + " are already open in another window.");
+        }
+        try {
+            long generation = Math.max(1, latestGeneration(directory));
+            ColumnarTaskStore store = new ColumnarTaskStore(generationPath(directory, generation));
+            store.markValid(); // A new store is valid from the start
+            int removedSlots = store.slotCount - store.size;
+            if (removedSlots >= MIN_COMPACT_SLOTS && removedSlots > store.size) { // Mostly dead slots, copy the live ones to a new generation
+                ColumnarTaskStore source = store;
+                ColumnarTaskStore compacted = new ColumnarTaskStore(generationPath(directory, generation + 1));
+                source.forEachLiveSlot(slot -> compacted.copySlotFrom(source, slot));
+                compacted.forceAll();
+                compacted.markValid(); // Only now does a restart pick the new generation
+                compacted.meta.buffer.force();
+                store.closeColumns();
+                store = compacted;
+                generation++;
+            }
+            store.lockChannel = lockChannel;
+            store.lock = lock;
+            deleteOtherGenerations(directory, generation);
+            return store;
+        } catch (IOException | RuntimeException ex) {
+            lockChannel.close(); // Also releases the lock
+            throw ex;
+        }
+    }
+
+    @Override
+    public long add(Task task) {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        int slot = appendSlot(task.getPriority().ordinal(), task.getDeadlineDay(), task.isCompleted(), description, 0, description.length);
+        task.setId(slot);
+        return slot;
+    }
+
+    @Override
+    public Task remove(int index) {
+        return removeSlot(slotOf(index));
+    }
+
+    @Override
+    public Task removeById(long id) {
+        return isLive(id) ? removeSlot((int) id) : null;
+    }
+
+    // Method to mark a slot as removed, its id is never handed out again
+    private Task removeSlot(int slot) {
+        Task task = taskAt(slot);
+        setBit(removed, slot);
+        size--;
+        blockLive.add(slot >>> BLOCK_SHIFT, -1);
+        priorityCounts[priorities.buffer.get(slot)]--;
+        if (task.isCompleted()) {
+            completedCount--;
+        } else {
+            countPending(task.getDeadlineDay(), -1);
+        }
+        queryIndex.remove(slot, task.getPriority(), task.getDeadlineDay());
+        return task;
+    }
+
+    @Override
+    public Task markCompleted(int index) {
+        return markSlotCompleted(slotOf(index));
+    }
+
+    @Override
+    public Task markCompletedById(long id) {
+        return isLive(id) ? markSlotCompleted((int) id) : null;
+    }
+
+    // Method to set a slot's completed bit
+    private Task markSlotCompleted(int slot) {
+        if (!getBit(completed, slot)) {
+            setBit(completed, slot);
+            completedCount++;
+            countPending(deadlines.buffer.getInt(slot << 2), -1);
+            queryIndex.markCompleted(slot);
+        }
+        return taskAt(slot);
+    }
+
+    @Override
+    public Task markPendingById(long id) {
+        if (!isLive(id)) {
+            return null;
+        }
+        int slot = (int) id;
+        if (getBit(completed, slot)) {
+            clearBit(completed, slot);
+            completedCount--;
+            countPending(deadlines.buffer.getInt(slot << 2), 1);
+            queryIndex.markPending(slot);
+        }
+        return taskAt(slot);
+    }
+
+    // A removed slot keeps its columns until the next start, so a task removed this session goes back into its own slot
+    // Any other task is appended, the columns have no room between slots
+    @Override
+    public long restore(int index, Task task) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        long id = task.getId();
+        boolean ownSlot = id >= 0 && id < slotCount && getBit(removed, (int) id)
+                && (index == 0 || slotOf(index - 1) < id) && (index == size || slotOf(index) > id);
+        if (!ownSlot) {
+            return add(task);
+        }
+        int slot = (int) id;
+        if (task.isCompleted()) {
+            setBit(completed, slot);
+            completedCount++;
+        } else {
+            clearBit(completed, slot);
+            countPending(task.getDeadlineDay(), 1);
+        }
+        clearBit(removed, slot);
+        size++;
+        blockLive.add(slot >>> BLOCK_SHIFT, 1);
+        priorityCounts[priorities.buffer.get(slot)]++;
+        queryIndex.add(slot, task.getPriority(), task.getDeadlineDay(), task.isCompleted());
+        return slot;
+    }
+
+    @Override
+    public Task get(int index) {
+        return taskAt(slotOf(index));
+    }
+
+    @Override
+    public Task getById(long id) {
+        return isLive(id) ? taskAt((int) id) : null;
+    }
+
+    // Ids are slots, they stay the same until removed slots are reclaimed on a later start
+    @Override
+    public long getId(int index) {
+        return slotOf(index);
+    }
+
+    @Override
+    public int indexOf(long id) {
+        if (!isLive(id)) {
+            return -1;
+        }
+        int slot = (int) id;
+        int block = slot >>> BLOCK_SHIFT;
+        int index = blockLive.countBefore(block); // Whole blocks before the slot's block
+        for (int word = block << (BLOCK_SHIFT - 6); word < slot >>> 6; word++) { // Whole words before the slot's word
+            index += Long.bitCount(~removed.buffer.getLong(word << 3));
+        }
+        return index + Long.bitCount(~removed.buffer.getLong((slot >>> 6) << 3) & ((1L << slot) - 1)); // Live slots below it in its own word
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        String term = query.toLowerCase(Locale.ROOT);
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        List<Task> results = new ArrayList<>();
+        forEachLiveSlot(slot -> {
+            if (contains(slot, term, bytes, false)) {
+                results.add(taskAt(slot));
+            }
+        });
+        return results;
+    }
+
+    @Override
+    public List<Task> searchPrefix(String prefix) {
+        String term = prefix.toLowerCase(Locale.ROOT);
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        List<Task> results = new ArrayList<>();
+        forEachLiveSlot(slot -> {
+            if (contains(slot, term, bytes, true)) {
+                results.add(taskAt(slot));
+            }
+        });
+        return results;
+    }
+
+    // There is no word index over the heap, so every description is scored; each distinct word is scored once per search
+    @Override
+    public List<Task> searchRanked(String query, int limit) {
+        FuzzyQuery fuzzy = new FuzzyQuery(query);
+        if (limit <= 0 || fuzzy.getText().isEmpty()) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Long> best = new PriorityQueue<>(limit); // Lowest of the best so far on top
+        forEachLiveSlot(slot -> {
+            float score = (float) fuzzy.score(descriptionAt(slot).toLowerCase(Locale.ROOT));
+            if (score > 0) {
+                long key = ((long) Float.floatToIntBits(score) << 32) | (Integer.MAX_VALUE - slot); // Positive floats sort like their bits, ties keep slot order
+                if (best.size() < limit) {
+                    best.add(key);
+                } else if (key > best.peek()) {
+                    best.poll();
+                    best.add(key);
+                }
+            }
+        });
+        List<Task> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            results.add(taskAt(Integer.MAX_VALUE - (int) (best.poll() & 0xFFFFFFFFL)));
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    // Filters come from the query indexes, text is then checked against the heap bytes of the slots left
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        int today = today();
+        BitSet slots = queryIndex.select(query, today);
+        if (!query.getTerms().isEmpty()) {
+            List<String> terms = query.getTerms();
+            List<byte[]> termBytes = new ArrayList<>();
+            for (String term : terms) {
+                termBytes.add(term.getBytes(StandardCharsets.UTF_8));
+            }
+            slots = TaskQueryIndex.filter(slots, slot -> {
+                for (int i = 0; i < terms.size(); i++) {
+                    if (!contains(slot, terms.get(i), termBytes.get(i), false)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        }
+        return queryIndex.page(slots, query, today, this::taskAt);
+    }
+
+
+    @Override
+    public int getPriorityCount(Task.Priority priority) {
+        return priorityCounts[priority.ordinal()];
+    }
+
+    @Override
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    // Summed over the days already passed, so the count costs a step per overdue day rather than a scan of the columns
+    @Override
+    public int getOverdueCount() {
+        int count = 0;
+        for (int tasksDue : pendingByDay.headMap(today()).values()) {
+            count += tasksDue;
+        }
+        return count;
+    }
+
+    // Overdue tasks in deadline order, read from the deadline index
+    @Override
+    public List<Task> getOverdueTasks() {
+        List<Task> overdue = new ArrayList<>();
+        queryIndex.forEachDue(Integer.MIN_VALUE, today(), slot -> {
+            if (!getBit(completed, slot)) {
+                overdue.add(taskAt(slot));
+            }
+            return true;
+        });
+        return overdue;
+    }
+
+    @Override
+    public List<Task> getUpcoming(int limit) {
+        List<Task> upcoming = new ArrayList<>();
+        if (limit <= 0) {
+            return upcoming;
+        }
+        queryIndex.forEachDue(today(), Integer.MAX_VALUE, slot -> { // Earliest deadline first, ties in slot order
+            if (!getBit(completed, slot)) {
+                upcoming.add(taskAt(slot));
+            }
+            return upcoming.size() < limit;
+        });
+        return upcoming;
+    }
+
+    // Columns are written in place through the mappings, so a batch needs nothing extra
+    @Override
+    public void beginBatch() {
+    }
+
+    @Override
+    public void endBatch() {
+    }
+
+    @Override
+    public void addOverdueListener(Consumer<Task> listener) {
+        overdueListeners.add(listener);
+    }
+
+    @Override
+    public void poll() {
+        int today = today();
+        if (today == lastPollDay && firstUnpolledSlot == slotCount) { // No new day and no new tasks
+            return;
+        }
+        int previousDay = lastPollDay;
+        int newSlots = previousDay == Integer.MIN_VALUE ? slotCount : firstUnpolledSlot; // The first poll reports every overdue task through the index
+        List<Task> due = new ArrayList<>();
+        queryIndex.forEachDue(previousDay, today, slot -> { // Fell due since the last poll, new slots are checked below
+            if (slot < newSlots && !getBit(completed, slot)) {
+                due.add(taskAt(slot));
+            }
+            return true;
+        });
+        for (int slot = newSlots; slot < slotCount; slot++) { // Added since the last poll with a deadline already passed
+            if (!getBit(removed, slot) && !getBit(completed, slot) && deadlines.buffer.getInt(slot << 2) < today) {
+                due.add(taskAt(slot));
+            }
+        }
+        lastPollDay = today;
+        firstUnpolledSlot = slotCount;
+        for (Task task : due) {
+            for (Consumer<Task> listener : overdueListeners) {
+                listener.accept(task);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeMeta();
+            forceAll();
+            closeColumns();
+            lock.release();
+        } finally {
+            lockChannel.close();
+        }
+    }
+
+    // Method to append a slot to every column, returns the slot
+    private int appendSlot(int priority, int deadlineDay, boolean isCompleted, byte[] description, int start, int length) {
+        int slot = slotCount;
+        if (heapSize + length > MAX_COLUMN_BYTES || slot == Integer.MAX_VALUE - 1) {
+            throw new IllegalStateException("Column store in " + directory + " is full.");
+        }
+        priorities.ensure(slot + 1L);
+        deadlines.ensure((slot + 1L) << 2);
+        offsets.ensure((slot + 2L) << 3);
+        completed.ensure(((slot >>> 6) + 1L) << 3);
+        removed.ensure(((slot >>> 6) + 1L) << 3);
+        heap.ensure(heapSize + length);
+
+        heap.buffer.put((int) heapSize, description, start, length);
+        offsets.buffer.putLong(slot << 3, heapSize);
+        offsets.buffer.putLong((slot + 1) << 3, heapSize + length);
+        priorities.buffer.put(slot, (byte) priority);
+        deadlines.buffer.putInt(slot << 2, deadlineDay);
+        if (isCompleted) {
+            setBit(completed, slot);
+        } else {
+            clearBit(completed, slot); // Could hold a half-written slot from before a crash
+        }
+        clearBit(removed, slot);
+
+        slotCount++;
+        heapSize += length;
+        writeMeta(); // Slot is only counted on restart once all its columns are written
+
+        size++;
+        priorityCounts[priority]++;
+        if (isCompleted) {
+            completedCount++;
+        } else {
+            countPending(deadlineDay, 1);
+        }
+        blockLive.add(slot >>> BLOCK_SHIFT, 1);
+        queryIndex.add(slot, PRIORITIES[priority], deadlineDay, isCompleted);
+        return slot;
+    }
+
+    // Method to copy a live slot from another store, used when compacting
+    private void copySlotFrom(ColumnarTaskStore source, int slot) {
+        int start = (int) source.offsets.buffer.getLong(slot << 3);
+        int length = (int) source.offsets.buffer.getLong((slot + 1) << 3) - start;
+        byte[] description = new byte[length];
+        source.heap.buffer.get(start, description, 0, length);
+        appendSlot(source.priorities.buffer.get(slot), source.deadlines.buffer.getInt(slot << 2), getBit(source.completed, slot), description, 0, length);
+    }
+
+    // Method to rebuild the counters and query indexes from the columns after opening
+    private void countSlots() {
+        int[] counts = new int[(slotCount >>> BLOCK_SHIFT) + 1];
+        forEachLiveSlot(slot -> {
+            size++;
+            priorityCounts[priorities.buffer.get(slot)]++;
+            boolean isCompleted = getBit(completed, slot);
+            if (isCompleted) {
+                completedCount++;
+            } else {
+                countPending(deadlines.buffer.getInt(slot << 2), 1);
+            }
+            counts[slot >>> BLOCK_SHIFT]++;
+            queryIndex.add(slot, PRIORITIES[priorities.buffer.get(slot)], deadlines.buffer.getInt(slot << 2), isCompleted);
+        });
+        for (int block = counts.length - 1; block >= 0; block--) { // Last first, so the tree grows once
+            blockLive.add(block, counts[block]);
+        }
+    }
+
+    // Method to change the number of pending tasks due on a day
+    private void countPending(int day, int delta) {
+        pendingByDay.merge(day, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+
+    // Method to find the slot holding the task at an index
+    private int slotOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int block = blockLive.blockOf(index); // Skip whole blocks of 4096 slots
+        index -= blockLive.countBefore(block);
+        for (int word = block << (BLOCK_SHIFT - 6); ; word++) { // Then whole words of 64 slots
+            long live = ~removed.buffer.getLong(word << 3) & validBits(word);
+            int count = Long.bitCount(live);
+            if (index < count) {
+                for (int i = 0; i < index; i++) {
+                    live &= live - 1; // Drop the lowest live slot
+                }
+                return (word << 6) + Long.numberOfTrailingZeros(live);
+            }
+            index -= count;
+        }
+    }
+
+    // Method to check whether an id is a slot that has been written and not removed
+    private boolean isLive(long id) {
+        return id >= 0 && id < slotCount && !getBit(removed, (int) id);
+    }
+
+    // Method to build a task object from a slot
+    private Task taskAt(int slot) {
+        Task task = new Task(descriptionAt(slot), PRIORITIES[priorities.buffer.get(slot)], deadlines.buffer.getInt(slot << 2));
+        if (getBit(completed, slot)) {
+            task.markCompleted();
+        }
+        task.setId(slot);
+        return task;
+    }
+
+    // Method to decode a slot's description from the heap
+    private String descriptionAt(int slot) {
+        int start = (int) offsets.buffer.getLong(slot << 3);
+        int length = (int) offsets.buffer.getLong((slot + 1) << 3) - start;
+        byte[] description = new byte[length];
+        heap.buffer.get(start, description, 0, length);
+        return new String(description, StandardCharsets.UTF_8);
+    }
+
+    // Method to check if a slot's description contains a term lowercased with Locale.ROOT, at a word start if asked
+    // ASCII letters are folded on the heap bytes; a description with other characters that does not match that way
+    // is decoded and lowercased like TaskSearchIndex does, so both stores find the same tasks
+    private boolean contains(int slot, String term, byte[] termBytes, boolean wordStart) {
+        MappedByteBuffer bytes = heap.buffer;
+        int start = (int) offsets.buffer.getLong(slot << 3);
+        int end = (int) offsets.buffer.getLong((slot + 1) << 3);
+        boolean ascii = true;
+        for (int i = start; i < end; i++) {
+            byte b = bytes.get(i);
+            ascii &= b >= 0;
+            if (i + termBytes.length > end || wordStart && i > start && isWordByte(bytes.get(i - 1))) {
+                continue;
+            }
+            int j = 0;
+            while (j < termBytes.length && toLower(bytes.get(i + j)) == termBytes[j]) {
+                j++;
+            }
+            if (j == termBytes.length) {
+                return true;
+            }
+        }
+        if (ascii) {
+            return false;
+        }
+        String text = descriptionAt(slot).toLowerCase(Locale.ROOT);
+        for (int i = text.indexOf(term); i >= 0; i = text.indexOf(term, i + 1)) {
+            if (!wordStart || i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Method to call an action for every slot that is not removed
+    private void forEachLiveSlot(IntConsumer action) {
+        for (int word = 0; word << 6 < slotCount; word++) {
+            for (long bits = ~removed.buffer.getLong(word << 3) & validBits(word); bits != 0; bits &= bits - 1) {
+                action.accept((word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    // Method to get a mask of the slots in a bit column word that have been written
+    private long validBits(int word) {
+        int remaining = slotCount - (word << 6);
+        return remaining >= 64 ? -1L : (1L << remaining) - 1;
+    }
+
+    // Method to store the slot count and heap size
+    private void writeMeta() {
+        meta.buffer.putLong(8, slotCount);
+        meta.buffer.putLong(16, heapSize);
+    }
+
+    // Method to mark the store as completely written
+    private void markValid() {
+        writeMeta();
+        meta.buffer.putLong(0, MAGIC);
+    }
+
+    // Method to write every column to disk
+    private void forceAll() {
+        for (Column column : columns()) {
+            column.buffer.force();
+        }
+    }
+
+    // Method to close every column file
+    private void closeColumns() throws IOException {
+        for (Column column : columns()) {
+            column.close();
+        }
+    }
+
+    // Method to list the column files
+    private Column[] columns() {
+        return new Column[]{meta, priorities, deadlines, completed, removed, offsets, heap};
+    }
+
+    // Method to get today's date as days since 01-01-1970
+    private static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    private static boolean getBit(Column column, int slot) {
+        return (column.buffer.getLong((slot >>> 6) << 3) & (1L << slot)) != 0;
+    }
+
+    private static void setBit(Column column, int slot) {
+        int offset = (slot >>> 6) << 3;
+        column.buffer.putLong(offset, column.buffer.getLong(offset) | (1L << slot));
+    }
+
+    private static void clearBit(Column column, int slot) {
+        int offset = (slot >>> 6) << 3;
+        column.buffer.putLong(offset, column.buffer.getLong(offset) & ~(1L << slot));
+    }
+
+    // Method to lowercase an ASCII letter byte
+    private static byte toLower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    // Method to check if a byte is part of a word, bytes of non-ASCII characters count as letters
+    private static boolean isWordByte(byte b) {
+        return b < 0 || (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    // Method to find the newest generation directory with a valid store, 0 if there is none
+    private static long latestGeneration(Path directory) throws IOException {
+        long latest = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, GENERATION_PREFIX + "*")) {
+            for (Path dir : dirs) {
+                try {
+                    long generation = Long.parseLong(dir.getFileName().toString().substring(GENERATION_PREFIX.length()));
+                    if (generation > latest && hasValidMeta(dir)) {
+                        latest = generation;
+                    }
+                } catch (NumberFormatException ex) {
+                    // Not one of our directories
+                }
+            }
+        }
+        return latest;
+    }
+
+    // Method to check if a generation directory was completely written
+    private static boolean hasValidMeta(Path dir) throws IOException {
+        Path file = dir.resolve("meta.col");
+        if (!Files.isRegularFile(file) || Files.size(file) < 8) {
+            return false;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(8);
+            in.read(magic, 0);
+            return magic.getLong(0) == MAGIC;
+        }
+    }
+
+    // Method to delete other generation directories, they may still be mapped so failures are ignored
+    private static void deleteOtherGenerations(Path directory, long current) {
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, GENERATION_PREFIX + "*")) {
+            for (Path dir : dirs) {
+                if (!dir.equals(generationPath(directory, current))) {
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                        for (Path file : files) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                    Files.deleteIfExists(dir);
+                }
+            }
+        } catch (IOException ex) {
+            // Deleted again on the next start
+        }
+    }
+
+    // Method to get the directory of a generation
+    private static Path generationPath(Path directory, long generation) {
+        return directory.resolve(GENERATION_PREFIX + generation);
+    }
+
+    // Column file mapped into memory, remapped larger as it fills up
+    private static class Column implements Closeable {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+
+        Column(Path file, long initialCapacity) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), initialCapacity)); // Mapping past the end grows the file
+        }
+
+        // Make sure the mapping covers the given number of bytes
+        void ensure(long bytes) {
+            if (bytes <= buffer.capacity()) {
+                return;
+            }
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(MAX_COLUMN_BYTES, Math.max(bytes, buffer.capacity() * 2L)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
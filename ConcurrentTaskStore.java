@@ -0,0 +1,280 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Task store wrapper shared by the event dispatch thread, background workers, import jobs and API requests
+// The stores keep their indexes up to date on every change, so searches, queries and summaries only read and share the lock
+public class ConcurrentTaskStore implements TaskStore {
+    private final TaskStore tasks; // Store every call is passed on to while holding the lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Lookups share it, anything that may change the store takes it alone
+    private final Lock read = lock.readLock();
+    private final Lock write = lock.writeLock();
+
+    // Constructor taking the store to guard
+    public ConcurrentTaskStore(TaskStore tasks) {
+        this.tasks = tasks;
+    }
+
+    @Override
+    public long add(Task task) {
+        write.lock();
+        try {
+            return tasks.add(task);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Task remove(int index) {
+        write.lock();
+        try {
+            return tasks.remove(index);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Task removeById(long id) {
+        write.lock();
+        try {
+            return tasks.removeById(id);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Task markCompleted(int index) {
+        write.lock();
+        try {
+            return tasks.markCompleted(index);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Task markCompletedById(long id) {
+        write.lock();
+        try {
+            return tasks.markCompletedById(id);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Task markPendingById(long id) {
+        write.lock();
+        try {
+            return tasks.markPendingById(id);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public long restore(int index, Task task) {
+        write.lock();
+        try {
+            return tasks.restore(index, task);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Task get(int index) {
+        read.lock();
+        try {
+            return tasks.get(index);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public Task getById(long id) {
+        read.lock();
+        try {
+            return tasks.getById(id);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public long getId(int index) {
+        read.lock();
+        try {
+            return tasks.getId(index);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public int indexOf(long id) {
+        read.lock();
+        try {
+            return tasks.indexOf(id);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        read.lock();
+        try {
+            return tasks.size();
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        read.lock();
+        try {
+            return tasks.search(query);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> searchPrefix(String prefix) {
+        read.lock();
+        try {
+            return tasks.searchPrefix(prefix);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> searchRanked(String query, int limit) {
+        read.lock();
+        try {
+            return tasks.searchRanked(query, limit);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        read.lock();
+        try {
+            return tasks.query(query);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public int getPriorityCount(Task.Priority priority) {
+        read.lock();
+        try {
+            return tasks.getPriorityCount(priority);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public int getCompletedCount() {
+        read.lock();
+        try {
+            return tasks.getCompletedCount();
+        } finally {
+            read.unlock();
+        }
+    }
+
+    // Overdue lookups count deadlines passed since the last poll without moving them, only poll does that
+    @Override
+    public int getOverdueCount() {
+        read.lock();
+        try {
+            return tasks.getOverdueCount();
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getOverdueTasks() {
+        read.lock();
+        try {
+            return tasks.getOverdueTasks();
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getUpcoming(int limit) {
+        read.lock();
+        try {
+            return tasks.getUpcoming(limit);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public void beginBatch() {
+        write.lock();
+        try {
+            tasks.beginBatch();
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public void endBatch() {
+        write.lock();
+        try {
+            tasks.endBatch();
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public void addOverdueListener(Consumer<Task> listener) {
+        write.lock();
+        try {
+            tasks.addOverdueListener(listener);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public void poll() {
+        write.lock();
+        try {
+            tasks.poll(); // Listeners run on the polling thread while the lock is held
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        write.lock();
+        try {
+            tasks.close();
+        } finally {
+            write.unlock();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Typo tolerant query over task descriptions, scored word by word so the closest descriptions rank first
+// Each query word takes its best score against the words of a description: 1 for the same word, less for a longer word
+// it starts, less again for a word a typo or two away; a description containing the whole query also gets a bonus
+public class FuzzyQuery {
+    static final double SUBSTRING_BONUS = 0.5; // Added when the description contains the query as typed
+
+    private final String text; // Lowercased query
+    private final String[] words; // Lowercased query words
+    private final Map<String, double[]> tokenScores = new HashMap<>(); // Description word -> score per query word, as descriptions share most words
+
+    // Constructor taking the query as typed
+    public FuzzyQuery(String query) {
+        text = query.trim().toLowerCase(Locale.ROOT);
+        List<String> tokens = TaskSearchIndex.tokenize(text);
+        words = tokens.toArray(new String[0]);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getWordCount() {
+        return words.length;
+    }
+
+    public String getWord(int word) {
+        return words[word];
+    }
+
+    // Method to score one description word against one query word, 0 if they are not close
+    public double scoreWord(int word, String token) {
+        String w = words[word];
+        if (token.equals(w)) {
+            return 1;
+        }
+        if (token.startsWith(w)) { // Still being typed, closer the more of the word is there
+            return 0.5 + 0.5 * w.length() / token.length();
+        }
+        int max = maxEdits(w.length());
+        if (max == 0 || Math.abs(token.length() - w.length()) > max) {
+            return 0;
+        }
+        int distance = editDistance(w, token, max);
+        return distance <= max ? 0.6 * (1 - (double) distance / (w.length() + 1)) : 0;
+    }
+
+    // Method to score a lowercased description, 0 if it has nothing close to the query
+    public double score(String description) {
+        double score = description.contains(text) && !text.isEmpty() ? SUBSTRING_BONUS : 0;
+        if (words.length == 0) {
+            return score;
+        }
+        double[] best = new double[words.length];
+        for (String token : TaskSearchIndex.tokenize(description)) {
+            double[] tokenScore = tokenScores.computeIfAbsent(token, this::scoreToken);
+            for (int word = 0; word < words.length; word++) {
+                best[word] = Math.max(best[word], tokenScore[word]);
+            }
+        }
+        for (double wordScore : best) {
+            score += wordScore;
+        }
+        return score;
+    }
+
+    // Method to score one description word against every query word
+    private double[] scoreToken(String token) {
+        double[] score = new double[words.length];
+        for (int word = 0; word < words.length; word++) {
+            score[word] = scoreWord(word, token);
+        }
+        return score;
+    }
+
+    // Method to get the typos allowed in a word: none in very short words, where one typo makes a different word
+    static int maxEdits(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    // Method to count the insertions, deletions, substitutions and swaps of neighbours between two words,
+    // any count above max is returned as max + 1 as soon as it is certain, so far apart words cost little
+    static int editDistance(String a, String b, int max) {
+        int[] before = new int[b.length() + 1]; // Row two back, for swaps
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) { // Every path through this row already costs too much
+                return max + 1;
+            }
+            int[] spare = before;
+            before = previous;
+            previous = current;
+            current = spare;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+// Bitset of the slots still in use, with live counts per block of 4096 slots so an index maps to its slot without shifting
+// Finding the block is O(log blocks) through BlockCounts, then at most 64 words are counted inside it
+public class LiveSlots {
+    static final int BLOCK_SHIFT = 12; // 4096 slots per block of live counts
+
+    private long[] words = new long[64]; // One bit per slot, set while the slot is live
+    private final BlockCounts blockLive = new BlockCounts(); // Block -> live slots in it
+    private int slotCount; // Slots handed out, including removed ones
+    private int size; // Live slots
+
+    // Method to hand out the next slot, slots are never reused
+    public int add() {
+        int slot = slotCount;
+        if (slot == Integer.MAX_VALUE) {
+            throw new IllegalStateException("No slots left.");
+        }
+        if ((slot >>> 6) >= words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        words[slot >>> 6] |= 1L << slot;
+        blockLive.add(slot >>> BLOCK_SHIFT, 1);
+        slotCount++;
+        size++;
+        return slot;
+    }
+
+    // Method to free a live slot
+    public void remove(int slot) {
+        words[slot >>> 6] &= ~(1L << slot);
+        blockLive.add(slot >>> BLOCK_SHIFT, -1);
+        size--;
+    }
+
+    // Method to make a removed slot live again
+    public void restore(int slot) {
+        words[slot >>> 6] |= 1L << slot;
+        blockLive.add(slot >>> BLOCK_SHIFT, 1);
+        size++;
+    }
+
+    // Method to insert a live slot at a position, moving the slots from there on up by one
+    public void insert(int slot) {
+        add(); // Grows the arrays and counts the extra slot, the bits are shifted below
+        int last = (slotCount - 1) >>> 6;
+        long carry = words[slot >>> 6] >>> 63; // Bit pushed out of the slot's own word
+        long low = (1L << slot) - 1; // Bits below the slot stay where they are
+        long word = words[slot >>> 6];
+        words[slot >>> 6] = (word & low) | ((word & ~low) << 1) | (1L << slot);
+        for (int i = (slot >>> 6) + 1; i <= last; i++) {
+            long next = words[i] >>> 63;
+            words[i] = (words[i] << 1) | carry;
+            carry = next;
+        }
+        words[last] &= slotCount % 64 == 0 ? -1L : (1L << slotCount) - 1; // add() set the old last bit, drop anything past the end
+        for (int block = slot >>> BLOCK_SHIFT; block <= last >>> (BLOCK_SHIFT - 6); block++) { // Recount the blocks that moved
+            int count = 0;
+            for (int i = block << (BLOCK_SHIFT - 6); i <= last && i < (block + 1) << (BLOCK_SHIFT - 6); i++) {
+                count += Long.bitCount(words[i]);
+            }
+            blockLive.set(block, count);
+        }
+    }
+
+    // Method to check whether a slot has been handed out and not removed
+    public boolean isLive(long slot) {
+        return slot >= 0 && slot < slotCount && (words[(int) (slot >>> 6)] & (1L << slot)) != 0;
+    }
+
+    // Method to get the number of live slots
+    public int size() {
+        return size;
+    }
+
+    // Method to get the number of live slots in the block of 4096 holding a slot
+    public int liveInBlock(int slot) {
+        return blockLive.get(slot >>> BLOCK_SHIFT);
+    }
+
+    // Method to get the number of slots handed out, including removed ones
+    public int slotCount() {
+        return slotCount;
+    }
+
+    // Method to find the slot holding the live entry at an index
+    public int slotOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int block = blockLive.blockOf(index); // Skip whole blocks of 4096 slots
+        index -= blockLive.countBefore(block);
+        for (int word = block << (BLOCK_SHIFT - 6); ; word++) { // Then whole words of 64 slots
+            long live = words[word];
+            int count = Long.bitCount(live);
+            if (index < count) {
+                for (int i = 0; i < index; i++) {
+                    live &= live - 1; // Drop the lowest live slot
+                }
+                return (word << 6) + Long.numberOfTrailingZeros(live);
+            }
+            index -= count;
+        }
+    }
+
+    // Method to find the index of a live slot, counting the live slots before it
+    public int indexOf(int slot) {
+        int block = slot >>> BLOCK_SHIFT;
+        int index = blockLive.countBefore(block); // Whole blocks before the slot's block
+        for (int word = block << (BLOCK_SHIFT - 6); word < slot >>> 6; word++) { // Whole words before the slot's word
+            index += Long.bitCount(words[word]);
+        }
+        return index + Long.bitCount(words[slot >>> 6] & ((1L << slot) - 1)); // Live slots below it in its own word
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Task store wrapper that records how long each change, search and query takes, see TaskMetrics.wrap
+public class MeteredTaskStore implements TaskStore {
+    private final TaskStore tasks; // Store every call is passed on to
+
+    // Constructor taking the store to measure
+    public MeteredTaskStore(TaskStore tasks) {
+        this.tasks = tasks;
+    }
+
+    @Override
+    public long add(Task task) {
+        long start = System.nanoTime();
+        try {
+            return tasks.add(task);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.ADD, start);
+        }
+    }
+
+    @Override
+    public Task remove(int index) {
+        long start = System.nanoTime();
+        try {
+            return tasks.remove(index);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.REMOVE, start);
+        }
+    }
+
+    @Override
+    public Task removeById(long id) {
+        long start = System.nanoTime();
+        try {
+            return tasks.removeById(id);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.REMOVE, start);
+        }
+    }
+
+    @Override
+    public Task markCompleted(int index) {
+        long start = System.nanoTime();
+        try {
+            return tasks.markCompleted(index);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.COMPLETE, start);
+        }
+    }
+
+    @Override
+    public Task markCompletedById(long id) {
+        long start = System.nanoTime();
+        try {
+            return tasks.markCompletedById(id);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.COMPLETE, start);
+        }
+    }
+
+    @Override
+    public Task markPendingById(long id) {
+        return tasks.markPendingById(id); // Only used by undo
+    }
+
+    @Override
+    public long restore(int index, Task task) {
+        return tasks.restore(index, task);
+    }
+
+    @Override
+    public Task get(int index) {
+        return tasks.get(index); // Called per painted row, too cheap and too frequent to time
+    }
+
+    @Override
+    public Task getById(long id) {
+        return tasks.getById(id);
+    }
+
+    @Override
+    public long getId(int index) {
+        return tasks.getId(index);
+    }
+
+    @Override
+    public int indexOf(long id) {
+        return tasks.indexOf(id);
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        long start = System.nanoTime();
+        try {
+            return tasks.search(query);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.SEARCH, start);
+        }
+    }
+
+    @Override
+    public List<Task> searchPrefix(String prefix) {
+        long start = System.nanoTime();
+        try {
+            return tasks.searchPrefix(prefix);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.SEARCH, start);
+        }
+    }
+
+    @Override
+    public List<Task> searchRanked(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return tasks.searchRanked(query, limit);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.SEARCH, start);
+        }
+    }
+
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        long start = System.nanoTime();
+        try {
+            return tasks.query(query);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.QUERY, start);
+        }
+    }
+
+    @Override
+    public int getPriorityCount(Task.Priority priority) {
+        return tasks.getPriorityCount(priority);
+    }
+
+    @Override
+    public int getCompletedCount() {
+        return tasks.getCompletedCount();
+    }
+
+    @Override
+    public int getOverdueCount() {
+        return tasks.getOverdueCount();
+    }
+
+    @Override
+    public List<Task> getOverdueTasks() {
+        return tasks.getOverdueTasks(); // Part of the summary, which the front ends time as a whole
+    }
+
+    @Override
+    public List<Task> getUpcoming(int limit) {
+        long start = System.nanoTime();
+        try {
+            return tasks.getUpcoming(limit);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.UPCOMING, start);
+        }
+    }
+
+    @Override
+    public void beginBatch() {
+        tasks.beginBatch();
+    }
+
+    @Override
+    public void endBatch() {
+        tasks.endBatch();
+    }
+
+    @Override
+    public void addOverdueListener(Consumer<Task> listener) {
+        tasks.addOverdueListener(listener);
+    }
+
+    @Override
+    public void poll() {
+        tasks.poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        tasks.close();
+    }
+}
@@ -0,0 +1,155 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+// Repeat rule of a recurring task, anchored at its first deadline, e.g. daily, weekly, monthly, 3d, 2w, 6m, mon,wed,fri or weekdays
+// Occurrences are numbered from 0 and computed on demand, so nothing is stored per occurrence
+public class Recurrence {
+    private static final String[] DAY_NAMES = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+
+    private enum Unit { DAYS, MONTHS, WEEKDAYS }
+
+    private final Unit unit;
+    private final int step; // Days or months between occurrences, unused for weekdays
+    private final int weekdays; // Bit per day from Monday, used for weekdays
+    private final String text; // Rule as written by parse
+
+    private Recurrence(Unit unit, int step, int weekdays, String text) {
+        this.unit = unit;
+        this.step = step;
+        this.weekdays = weekdays;
+        this.text = text;
+    }
+
+    // Method to read a rule: daily, weekly, monthly, yearly, <n>d, <n>w, <n>m, weekdays, or day names like mon,wed,fri
+    public static Recurrence parse(String text) {
+        String rule = text.trim().toLowerCase(Locale.ROOT);
+        switch (rule) {
+            case "daily":
+                return new Recurrence(Unit.DAYS, 1, 0, rule);
+            case "weekly":
+                return new Recurrence(Unit.DAYS, 7, 0, rule);
+            case "monthly":
+                return new Recurrence(Unit.MONTHS, 1, 0, rule);
+            case "yearly":
+                return new Recurrence(Unit.MONTHS, 12, 0, rule);
+            case "weekdays":
+                return new Recurrence(Unit.WEEKDAYS, 0, 0x1F, rule);
+            default:
+                break;
+        }
+        if (rule.length() > 1 && Character.isDigit(rule.charAt(0))) {
+            int count;
+            try {
+                count = Integer.parseInt(rule.substring(0, rule.length() - 1));
+            } catch (NumberFormatException ex) {
+                throw invalid(text);
+            }
+            if (count < 1 || count > 1000) {
+                throw invalid(text);
+            }
+            switch (rule.charAt(rule.length() - 1)) {
+                case 'd':
+                    return new Recurrence(Unit.DAYS, count, 0, rule);
+                case 'w':
+                    return new Recurrence(Unit.DAYS, count * 7, 0, rule);
+                case 'm':
+                    return new Recurrence(Unit.MONTHS, count, 0, rule);
+                default:
+                    throw invalid(text);
+            }
+        }
+        int mask = 0;
+        for (String name : rule.split(",")) {
+            int day = indexOf(name.trim());
+            if (day < 0) {
+                throw invalid(text);
+            }
+            mask |= 1 << day;
+        }
+        return new Recurrence(Unit.WEEKDAYS, 0, mask, rule);
+    }
+
+    // Method to get the day of an occurrence, may be past the last valid day for very large numbers
+    public long occurrence(int start, long number) {
+        switch (unit) {
+            case DAYS:
+                return start + number * step;
+            case MONTHS:
+                return LocalDate.ofEpochDay(start).plusMonths(number * step).toEpochDay(); // Always from the start, so the 31st stays the 31st where it exists
+            default:
+                int perWeek = Integer.bitCount(weekdays);
+                long day = firstWeekday(start) + number / perWeek * 7;
+                for (long left = number % perWeek; ; day++) { // At most a week of days
+                    if (matches(day) && left-- == 0) {
+                        return day;
+                    }
+                }
+        }
+    }
+
+    // Method to count the occurrences before a day, which is also the number of the first occurrence on or after it
+    public long countBefore(int start, int day) {
+        if (day <= start) {
+            return 0;
+        }
+        switch (unit) {
+            case DAYS:
+                return ((long) day - start + step - 1) / step;
+            case MONTHS:
+                long number = ChronoUnit.MONTHS.between(LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(day)) / step; // Close, fixed up below
+                while (occurrence(start, number) < day) {
+                    number++;
+                }
+                while (number > 0 && occurrence(start, number - 1) >= day) {
+                    number--;
+                }
+                return number;
+            default:
+                long first = firstWeekday(start);
+                if (day <= first) {
+                    return 0;
+                }
+                long weeks = (day - first) / 7;
+                long count = weeks * Integer.bitCount(weekdays);
+                for (long d = first + weeks * 7; d < day; d++) { // Less than a week left
+                    if (matches(d)) {
+                        count++;
+                    }
+                }
+                return count;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    // Method to find the first day on or after the start that falls on one of the rule's weekdays
+    private long firstWeekday(int start) {
+        long day = start;
+        while (!matches(day)) {
+            day++;
+        }
+        return day;
+    }
+
+    // Method to check a day against the weekday bits, 01-01-1970 was a Thursday
+    private boolean matches(long day) {
+        return (weekdays & (1 << (int) Math.floorMod(day + 3, 7L))) != 0;
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < DAY_NAMES.length; i++) {
+            if (DAY_NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static IllegalArgumentException invalid(String text) {
+        return new IllegalArgumentException("Invalid repeat rule: " + text + ". Use daily, weekly, monthly, yearly, 3d, 2w, 6m, weekdays or days like mon,wed,fri.");
+    }
+}
@@ -0,0 +1,72 @@
+// A task that repeats by a rule, held once however many occurrences it has, occurrences before the done count are completed
+public class RecurringTask {
+    private final int id; // Id within its TaskRecurrences, never reused even after the rule is removed and the tasks reopened
+    private final String description;
+    private final Task.Priority priority;
+    private final Recurrence recurrence;
+    private final int startDay; // Deadline of the first occurrence as days since 01-01-1970
+    private long done; // Occurrences completed, always the earliest ones
+
+    RecurringTask(int id, String description, Task.Priority priority, Recurrence recurrence, int startDay, long done) {
+        if (description.isEmpty()) {
+            throw new IllegalArgumentException("Task description cannot be empty.");
+        }
+        this.id = id;
+        this.description = description;
+        this.priority = priority;
+        this.recurrence = recurrence;
+        this.startDay = startDay;
+        this.done = done;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Task.Priority getPriority() {
+        return priority;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public int getStartDay() {
+        return startDay;
+    }
+
+    public long getDone() {
+        return done;
+    }
+
+    // Method to get the deadline of the first occurrence not yet completed
+    public long getNextDay() {
+        return recurrence.occurrence(startDay, done);
+    }
+
+    // Method to count the occurrences not completed whose deadline is before today, without listing them
+    public long getOverdueCount(int today) {
+        return Math.max(0, recurrence.countBefore(startDay, today) - done);
+    }
+
+    // Method to complete the next occurrence
+    void completeNext() {
+        done++;
+    }
+
+    // Method to build the occurrence with a number as a plain task, it belongs to no store
+    Task occurrence(long number) {
+        return new Task(description, priority, (int) recurrence.occurrence(startDay, number));
+    }
+
+    @Override
+    public String toString() {
+        long next = getNextDay();
+        return String.format("Task: %s | Priority: %s | Repeats: %s | Next: %s", description, priority, recurrence,
+                next <= Integer.MAX_VALUE ? Task.formatDeadline((int) next) : "never");
+    }
+}
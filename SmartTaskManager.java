@@ -1,40 +1,202 @@
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SmartTaskManager extends JFrame {
-    private List<Task> tasks; // List to hold tasks
-    private DefaultListModel<String> taskListModel; // Model for the JList
+    private static final int SEARCH_LIMIT = 100; // Closest tasks shown for a search
+    private TaskWorkspaces workspaces; // Every workspace, each with its own tasks and journal
+    private TaskWorkspace workspace; // Workspace shown in the window
+    private final Map<String, TaskHistory> histories = new HashMap<>(); // Undo and redo kept per workspace while the window is open
+    private final Set<String> watched = new HashSet<>(); // Workspaces whose overdue tasks update the title
+    private boolean updatingWorkspaces; // Set while the workspace list is refilled, so its events are ignored
+    private TaskStore tasks; // List to hold tasks
+    private TaskRecurrences recurrences; // Repeating tasks, their occurrences are worked out when shown
+    private TaskListModel taskListModel; // Model for the JList, formats rows as they are shown
+    private TaskHistory history; // Undo and redo of the changes made in this window
     private JList<String> taskList; // List to display tasks
-    private JTextField taskField, deadlineField, searchField; // Text fields for input
+    private JTextField taskField, deadlineField, repeatField, searchField; // Text fields for input
     private JComboBox<String> priorityBox; // ComboBox for priority selection
-    private JButton addButton, removeButton, markButton, summaryButton, searchButton; // Buttons for various actions
+    private JComboBox<String> workspaceBox; // Workspace picker, typing a new name creates one
+    private JCheckBox searchAllBox; // Searches every workspace instead of the shown one
+    private JButton addButton, removeButton, markButton, summaryButton, searchButton, importButton, exportButton, metricsButton, undoButton, redoButton, recurringButton, allWorkspacesButton; // Buttons for various actions
+    private DefaultListModel<String> resultListModel; // Model for the search and summary results
+    private JList<String> resultList; // List to display search and summary results
+    private JLabel resultLabel; // Label describing the results
+    private Timer searchTimer; // Waits for typing to pause before searching
+    private ResultsWorker resultsWorker; // Worker filling the results, cancelled when a newer one starts
+    private TaskServer server; // Local HTTP API on the same tasks, only started when -Dsmarttaskmanager.port is set
+    private final AtomicBoolean refreshQueued = new AtomicBoolean(); // Set while a refresh for API changes waits to run
 
     // Constructor for setting up the UI and event handlers
     public SmartTaskManager() {
-        tasks = new ArrayList<>(); // Initializing the task list
-        taskListModel = new DefaultListModel<>(); // Initializing the list model
+        openWorkspaces(); // Loading the saved tasks and repeat rules, shared with background workers
+        taskListModel = new TaskListModel(tasks); // Initializing the list model over the saved tasks
+        history = historyOf(workspace); // Undo and redo for changes made here
         taskList = new JList<>(taskListModel); // Initializing the JList
         taskField = new JTextField(15); // Text field for task description
         deadlineField = new JTextField(10); // Text field for deadline
+        repeatField = new JTextField(10); // Text field for the repeat rule, blank for a one-off task
+        repeatField.setToolTipText("daily, weekly, monthly, yearly, 3d, 2w, 6m, weekdays or mon,wed,fri");
         searchField = new JTextField(15); // Text field for search
         priorityBox = new JComboBox<>(new String[]{"High", "Medium", "Low"}); // ComboBox for priority
+        workspaceBox = new JComboBox<>(); // Filled with the workspace names
+        workspaceBox.setEditable(true);
+        workspaceBox.setToolTipText("Pick a workspace or type a new name to create one");
+        searchAllBox = new JCheckBox("Search all workspaces"); // Checkbox to search every workspace
         addButton = new JButton("Add Task"); // Button to add a task
         removeButton = new JButton("Remove Task"); // Button to remove a task
         markButton = new JButton("Mark Completed"); // Button to mark a task as completed
         summaryButton = new JButton("Show Summary"); // Button to show task summary
         searchButton = new JButton("Search"); // Button to search tasks
+        importButton = new JButton("Import..."); // Button to add tasks from a file
+        exportButton = new JButton("Export..."); // Button to write all tasks to a file
+        metricsButton = new JButton("Metrics"); // Button to show operation timings and memory
+        undoButton = new JButton("Undo"); // Button to undo the last change
+        redoButton = new JButton("Redo"); // Button to redo the last undone change
+        recurringButton = new JButton("Recurring"); // Button to show the repeating tasks
+        allWorkspacesButton = new JButton("All Workspaces"); // Button to show the counts of every workspace
+        resultListModel = new DefaultListModel<>(); // Initializing the results model
+        resultList = new JList<>(resultListModel); // Initializing the results list
+        resultLabel = new JLabel("Results"); // Label for the results
+        searchTimer = new Timer(300, e -> searchTasks()); // Search 300 ms after the last key press
+        searchTimer.setRepeats(false);
 
         setupUI(); // Setting up the UI components
         setupEventHandlers(); // Setting up event handlers for buttons
+        updateTitle(); // Saved tasks may already be overdue
+        startServer(); // Serve the same tasks over HTTP if asked to
+    }
+
+    // Method to start the HTTP API when a port is given with -Dsmarttaskmanager.port
+    private void startServer() {
+        try {
+            int port = TaskServer.configuredPort();
+            if (port > 0) {
+                server = TaskServer.start(workspaces, port, this::refreshFromServer);
+            }
+        } catch (IOException | NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Could not start the HTTP API.\n" + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); // Show error message
+        }
+    }
+
+    // Method called by request threads after a change, many changes in a row cause a single refresh
+    private void refreshFromServer() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                refreshQueued.set(false);
+                taskListModel.reload(); // Tasks may have been added or removed anywhere
+                updateTitle();
+            });
+        }
+    }
+
+    // Method to open the saved workspaces and show the one named by -Dsmarttaskmanager.workspace, falls back to unsaved tasks if they cannot be opened
+    private void openWorkspaces() {
+        String name = System.getProperty("smarttaskmanager.workspace", TaskWorkspaces.DEFAULT);
+        try {
+            workspaces = TaskWorkspaces.open(TaskStore.defaultDirectory());
+            workspace = workspaces.get(name);
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(null, "Could not load saved tasks, changes will not be saved.\n" + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); // Show error message
+            workspaces = new TaskWorkspaces();
+            try {
+                workspace = workspaces.get(TaskWorkspaces.DEFAULT);
+            } catch (IOException unexpected) {
+                throw new UncheckedIOException(unexpected); // Unsaved workspaces read no files
+            }
+        }
+        tasks = workspace.getTasks();
+        recurrences = workspace.getRecurrences();
+        watch(workspace);
+    }
+
+    // Method to get the undo and redo of a workspace, made on its first use
+    private TaskHistory historyOf(TaskWorkspace shown) {
+        return histories.computeIfAbsent(shown.getName(), name -> new TaskHistory(shown.getTasks()));
+    }
+
+    // Method to show the new overdue count when a deadline passes in a workspace, may be reported by a worker
+    private void watch(TaskWorkspace shown) {
+        if (!watched.add(shown.getName())) {
+            return; // One listener per workspace
+        }
+        shown.getTasks().addOverdueListener(task -> SwingUtilities.invokeLater(() -> {
+            if (workspace == shown) { // Other workspaces do not count towards the title
+                updateTitle();
+            }
+        }));
+    }
+
+    // Method to show the workspace picked or typed in the workspace box
+    private void switchWorkspace() {
+        Object selected = workspaceBox.getSelectedItem();
+        if (updatingWorkspaces || selected == null) {
+            return;
+        }
+        TaskWorkspace next;
+        try {
+            next = workspaces.get(selected.toString());
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); // Show error message
+            updateWorkspaceBox(); // Back to the workspace still shown
+            return;
+        }
+        if (next != workspace) {
+            workspace = next;
+            tasks = next.getTasks();
+            recurrences = next.getRecurrences();
+            watch(next);
+            taskListModel = new TaskListModel(tasks); // Model over the other workspace's tasks
+            taskList.setModel(taskListModel);
+            history = historyOf(next);
+            updateUndoButtons();
+            cancelResults();
+            resultLabel.setText("Results");
+            tasks.poll(); // Report tasks that went overdue while it was not shown
+            updateTitle();
+        }
+        updateWorkspaceBox(); // A new name joins the list
+    }
+
+    // Method to fill the workspace box with every workspace, the shown one selected
+    private void updateWorkspaceBox() {
+        updatingWorkspaces = true;
+        try {
+            workspaceBox.removeAllItems();
+            for (String name : workspaces.getNames()) {
+                workspaceBox.addItem(name);
+            }
+            workspaceBox.setSelectedItem(workspace.getName());
+        } finally {
+            updatingWorkspaces = false;
+        }
     }
 
     // Method to setup the UI components
     private void setupUI() {
         setTitle("Smart Task Manager"); // Setting the title of the window
-        setSize(600, 400); // Setting the size of the window
+        setSize(900, 450); // Setting the size of the window
         setDefaultCloseOperation(EXIT_ON_CLOSE); // Close operation
         setLayout(new BorderLayout()); // Using BorderLayout
 
@@ -69,6 +231,13 @@ public class SmartTaskManager extends JFrame {
 
         gbc.gridx = 0;
         gbc.gridy = 3;
+        inputPanel.add(new JLabel("Repeat (optional):"), gbc); // Label for repeat rule
+
+        gbc.gridx = 1;
+        inputPanel.add(repeatField, gbc); // Text field for repeat rule
+
+        gbc.gridx = 0;
+        gbc.gridy = 4;
         inputPanel.add(new JLabel("Search:"), gbc); // Label for search
 
         gbc.gridx = 1;
@@ -78,19 +247,41 @@ public class SmartTaskManager extends JFrame {
         inputPanel.add(searchButton, gbc); // Button for search
 
         gbc.gridx = 1;
-        gbc.gridy = 4;
+        gbc.gridy = 5;
         gbc.gridwidth = 2;
         inputPanel.add(addButton, gbc); // Button to add task
 
         // Panel for other buttons
         JPanel buttonPanel = new JPanel(new FlowLayout()); // Panel with FlowLayout
+        buttonPanel.add(undoButton); // Button to undo
+        buttonPanel.add(redoButton); // Button to redo
         buttonPanel.add(removeButton); // Button to remove task
         buttonPanel.add(markButton); // Button to mark task completed
         buttonPanel.add(summaryButton); // Button to show summary
+        buttonPanel.add(recurringButton); // Button to show recurring tasks
+        buttonPanel.add(importButton); // Button to import tasks
+        buttonPanel.add(exportButton); // Button to export tasks
+        buttonPanel.add(metricsButton); // Button to show metrics
+
+        // Panel for picking the workspace
+        JPanel workspacePanel = new JPanel(new FlowLayout(FlowLayout.LEFT)); // Panel with FlowLayout
+        workspacePanel.add(new JLabel("Workspace:")); // Label for workspace
+        workspacePanel.add(workspaceBox); // ComboBox for workspace
+        workspacePanel.add(allWorkspacesButton); // Button to show every workspace
+        workspacePanel.add(searchAllBox); // Checkbox to search every workspace
+        updateWorkspaceBox();
 
         // Adding panels to the frame
-        add(inputPanel, BorderLayout.NORTH); // Adding input panel to the north
-        add(new JScrollPane(taskList), BorderLayout.CENTER); // Adding task list to the center
+        JPanel northPanel = new JPanel(new BorderLayout()); // Workspace row above the inputs
+        northPanel.add(workspacePanel, BorderLayout.NORTH);
+        northPanel.add(inputPanel, BorderLayout.CENTER);
+        add(northPanel, BorderLayout.NORTH); // Adding workspace and input panels to the north
+        JPanel resultPanel = new JPanel(new BorderLayout()); // Panel for search and summary results
+        resultPanel.add(resultLabel, BorderLayout.NORTH);
+        resultPanel.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, new JScrollPane(taskList), resultPanel); // Tasks on the left, results on the right
+        splitPane.setResizeWeight(0.6);
+        add(splitPane, BorderLayout.CENTER); // Adding task list and results to the center
         add(buttonPanel, BorderLayout.SOUTH); // Adding button panel to the south
 
         // Customizing component fonts and colors
@@ -99,14 +290,30 @@ public class SmartTaskManager extends JFrame {
         deadlineField.setFont(font);
         searchField.setFont(font);
         priorityBox.setFont(font);
+        workspaceBox.setFont(font);
+        searchAllBox.setFont(font);
+        allWorkspacesButton.setFont(font);
+        recurringButton.setFont(font);
+        repeatField.setFont(font);
         addButton.setFont(font);
         removeButton.setFont(font);
         markButton.setFont(font);
         summaryButton.setFont(font);
         searchButton.setFont(font);
+        importButton.setFont(font);
+        exportButton.setFont(font);
+        metricsButton.setFont(font);
+        undoButton.setFont(font);
+        redoButton.setFont(font);
         taskList.setFont(font);
-
-        taskList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION); // Single selection mode for list
+        resultList.setFont(font);
+        resultLabel.setFont(font.deriveFont(Font.BOLD));
+        String prototype = new Task("A typical task description here", "Medium", "01-01-2024").toString();
+        taskList.setPrototypeCellValue(prototype); // Fixed row size so the JList never measures every row
+        resultList.setPrototypeCellValue(prototype);
+
+        taskList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION); // Shift and Ctrl select many tasks at once
+        updateUndoButtons(); // Nothing to undo yet
         taskList.setBackground(new Color(245, 245, 245)); // Background color for list
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10)); // Border for button panel
     }
@@ -117,7 +324,59 @@ public class SmartTaskManager extends JFrame {
         removeButton.addActionListener(e -> removeTask()); // Event handler for remove button
         markButton.addActionListener(e -> markTaskCompleted()); // Event handler for mark button
         summaryButton.addActionListener(e -> showSummary()); // Event handler for summary button
+        recurringButton.addActionListener(e -> showRecurring()); // Event handler for recurring button
+        workspaceBox.addActionListener(e -> switchWorkspace()); // Event handler for workspace box
+        allWorkspacesButton.addActionListener(e -> showAllWorkspaces()); // Event handler for all workspaces button
+        searchAllBox.addActionListener(e -> searchTasks()); // Event handler for search all checkbox
         searchButton.addActionListener(e -> searchTasks()); // Event handler for search button
+        importButton.addActionListener(e -> importTasks()); // Event handler for import button
+        exportButton.addActionListener(e -> exportTasks()); // Event handler for export button
+        metricsButton.addActionListener(e -> showResults("Metrics", () -> TaskMetrics.report(tasks))); // Event handler for metrics button
+        undoButton.addActionListener(e -> undo()); // Event handler for undo button
+        redoButton.addActionListener(e -> redo()); // Event handler for redo button
+        int menuKey = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx(); // Ctrl, or Cmd on a Mac
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, menuKey), "undo", this::undo);
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Y, menuKey), "redo", this::redo);
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, menuKey | InputEvent.SHIFT_DOWN_MASK), "redo", this::redo);
+        searchField.getDocument().addDocumentListener(new DocumentListener() { // Search as you type
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+
+        new Timer(60_000, e -> tasks.poll()).start(); // Check for passed deadlines once a minute
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (server != null) {
+                    server.stop(); // No more changes from the API
+                }
+                try {
+                    workspaces.close(); // Write out every workspace's journal before exiting
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(SmartTaskManager.this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); // Show error message
+                }
+            }
+        });
+    }
+
+    // Method to show the number of overdue tasks in the title bar
+    private void updateTitle() {
+        long overdueCount = tasks.getOverdueCount() + recurrences.getOverdueCount((int) LocalDate.now().toEpochDay()); // Get overdue count, missed occurrences counted from the rules
+        String title = workspace.getName().equals(TaskWorkspaces.DEFAULT) ? "Smart Task Manager" : "Smart Task Manager [" + workspace.getName() + "]";
+        setTitle(overdueCount == 0 ? title : String.format("%s (%d overdue)", title, overdueCount));
     }
 
     // Method to add a task
@@ -125,11 +384,27 @@ public class SmartTaskManager extends JFrame {
         String taskDescription = taskField.getText(); // Get task description
         String priority = (String) priorityBox.getSelectedItem(); // Get priority
         String deadline = deadlineField.getText(); // Get deadline
+        String repeat = repeatField.getText().trim(); // Get repeat rule
         
         if (taskDescription.isEmpty()) { // Check if description is empty
             JOptionPane.showMessageDialog(this, "Task description cannot be empty.", "Error", JOptionPane.ERROR_MESSAGE); // Show error message
             return;
         }
+
+        if (!repeat.isEmpty()) { // A repeating task is kept as one rule, not a task per occurrence
+            try {
+                recurrences.add(taskDescription, Task.Priority.parse(priority), Recurrence.parse(repeat), Task.parseDeadline(deadline));
+            } catch (IllegalArgumentException ex) { // Catch invalid input exception
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); // Show error message
+                return;
+            }
+            taskField.setText(""); // Clear task field
+            deadlineField.setText(""); // Clear deadline field
+            repeatField.setText(""); // Clear repeat field
+            updateTitle(); // Earlier occurrences may already be missed
+            showRecurring();
+            return;
+        }
         
         Task newTask;
         try {
@@ -139,143 +414,351 @@ public class SmartTaskManager extends JFrame {
             return;
         }
         
-        tasks.add(newTask); // Add task to list
-        taskListModel.addElement(newTask.toString()); // Add task to list model
+        history.add(newTask); // Add task to list, can be undone
+        updateUndoButtons();
+        tasks.poll(); // Report the task right away if its deadline has already passed
+        taskListModel.tasksAdded(1); // Show new task in the list
         taskField.setText(""); // Clear task field
         deadlineField.setText(""); // Clear deadline field
     }
 
-    // Method to remove a task
+    // Method to remove the selected tasks as one change
     private void removeTask() {
-        int selectedIndex = taskList.getSelectedIndex(); // Get selected index
-        if (selectedIndex >= 0) { // Check if a task is selected
-            tasks.remove(selectedIndex); // Remove task from list
-            taskListModel.remove(selectedIndex); // Remove task from list model
+        int[] selected = taskList.getSelectedIndices(); // Get selected indexes, in increasing order
+        if (selected.length > 0) { // Check if a task is selected
+            int[] removed = history.remove(selectedIds(selected)); // Remove tasks from list in one batch, can be undone
+            taskList.clearSelection();
+            taskListModel.tasksRemoved(removed); // One list event for the rows actually removed
+            updateTitle(); // Tasks may have been overdue
+            updateUndoButtons();
         }
     }
 
-    // Method to mark a task as completed
+    // Method to mark the selected tasks as completed as one change
     private void markTaskCompleted() {
-        int selectedIndex = taskList.getSelectedIndex(); // Get selected index
-        if (selectedIndex >= 0) { // Check if a task is selected
-            Task task = tasks.get(selectedIndex); // Get selected task
-            task.markCompleted(); // Mark task as completed
-            taskListModel.set(selectedIndex, task.toString()); // Update task in list model
+        int[] selected = taskList.getSelectedIndices(); // Get selected indexes, in increasing order
+        if (selected.length > 0) { // Check if a task is selected
+            history.complete(selectedIds(selected)); // Mark tasks as completed in one batch, can be undone
+            taskListModel.tasksChanged(selected[0], selected[selected.length - 1]); // Redraw them in one event
+            updateTitle(); // Tasks may have been overdue
+            updateUndoButtons();
         }
     }
 
-    // Method to show summary of tasks
-    private void showSummary() {
-        int highPriorityCount = 0, mediumPriorityCount = 0, lowPriorityCount = 0; // Counters for priorities
-        int completedCount = 0, overdueCount = 0; // Counters for completed and overdue tasks
+    // Method to get the ids of the tasks at the selected indexes
+    private long[] selectedIds(int[] selected) {
+        long[] ids = new long[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            ids[i] = tasks.getId(selected[i]);
+        }
+        return ids;
+    }
 
-        StringBuilder overdueTasks = new StringBuilder(); // StringBuilder for overdue tasks
+    // Method to undo the last change made in this window
+    private void undo() {
+        try {
+            if (history.undo()) {
+                afterHistoryChange();
+            }
+        } catch (IllegalStateException ex) { // Store refused a task, the change stays where it was
+            taskListModel.reload();
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); // Show error message
+        }
+    }
 
-        for (Task task : tasks) { // Iterate through tasks
-            switch (task.getPriority()) { // Check task priority
-                case "High":
-                    highPriorityCount++; // Increment high priority counter
-                    break;
-                case "Medium":
-                    mediumPriorityCount++; // Increment medium priority counter
-                    break;
-                case "Low":
-                    lowPriorityCount++; // Increment low priority counter
-                    break;
+    // Method to redo the last undone change
+    private void redo() {
+        try {
+            if (history.redo()) {
+                afterHistoryChange();
             }
-            if (task.isCompleted()) { // Check if task is completed
-                completedCount++; // Increment completed counter
+        } catch (IllegalStateException ex) { // Store refused a task, the change stays where it was
+            taskListModel.reload();
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); // Show error message
+        }
+    }
+
+    // Method to show the tasks after an undo or redo, which may touch rows anywhere in the list
+    private void afterHistoryChange() {
+        taskList.clearSelection();
+        taskListModel.reload(); // One refresh however many tasks came back or went
+        tasks.poll(); // Tasks made pending again may already be overdue
+        updateTitle();
+        updateUndoButtons();
+        if (history.getMisplaced() > 0) { // Store had no room at their old place
+            JOptionPane.showMessageDialog(this, history.getMisplaced() + " tasks could not go back to their old place and were added at the end.", "Undo", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    // Method to enable the undo and redo buttons and name what they would do
+    private void updateUndoButtons() {
+        String undoName = history.getUndoName(), redoName = history.getRedoName();
+        undoButton.setEnabled(undoName != null);
+        undoButton.setToolTipText(undoName != null ? "Undo " + undoName.toLowerCase(Locale.ROOT) : null);
+        redoButton.setEnabled(redoName != null);
+        redoButton.setToolTipText(redoName != null ? "Redo " + redoName.toLowerCase(Locale.ROOT) : null);
+    }
+
+    // Method to run an action when a key is pressed anywhere in the window
+    private void bindKey(KeyStroke key, String name, Runnable action) {
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(key, name);
+        getRootPane().getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
             }
-            if (task.isOverdue()) { // Check if task is overdue
-                overdueCount++; // Increment overdue counter
-                overdueTasks.append(task.toString()).append("\n"); // Add overdue task to StringBuilder
+        });
+    }
+
+    // Method to add the tasks in a CSV, JSON lines or .tasks file, parsed in the background and shown in one refresh
+    private void importTasks() {
+        File file = chooseFile("Import");
+        if (file == null) {
+            return;
+        }
+        setTransferEnabled(false);
+        new SwingWorker<TaskTransfer.ImportResult, Void>() {
+            @Override
+            protected TaskTransfer.ImportResult doInBackground() throws IOException {
+                return TaskTransfer.importTasks(tasks, file.toPath());
+            }
+
+            @Override
+            protected void done() {
+                setTransferEnabled(true);
+                try {
+                    TaskTransfer.ImportResult result = get();
+                    taskListModel.tasksAdded(result.getImported()); // One list event for all imported tasks
+                    tasks.poll(); // Report imported tasks whose deadline has already passed
+                    updateTitle();
+                    StringBuilder message = new StringBuilder("Imported " + result.getImported() + " tasks.");
+                    if (result.getErrorCount() > 0) {
+                        message.append("\nSkipped ").append(result.getErrorCount()).append(" invalid rows:");
+                        result.getErrors().stream().limit(10).forEach(error -> message.append('\n').append(error));
+                    }
+                    JOptionPane.showMessageDialog(SmartTaskManager.this, message.toString(), "Import", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException ex) {
+                    taskListModel.reload(); // Part of the file may have been added before it failed
+                    showTransferError(ex);
+                }
             }
+        }.execute();
+    }
+
+    // Method to write all tasks to a CSV, JSON lines or .tasks file in the background
+    private void exportTasks() {
+        File file = chooseFile("Export");
+        if (file == null) {
+            return;
         }
+        setTransferEnabled(false);
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws IOException {
+                return TaskTransfer.exportTasks(tasks, file.toPath());
+            }
+
+            @Override
+            protected void done() {
+                setTransferEnabled(true);
+                try {
+                    JOptionPane.showMessageDialog(SmartTaskManager.this, "Exported " + get() + " tasks.", "Export", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException ex) {
+                    showTransferError(ex);
+                }
+            }
+        }.execute();
+    }
+
+    // Method to ask for the file to import from or export to
+    private File chooseFile(String action) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(action + " Tasks (.csv, .jsonl or .tasks)");
+        int choice = action.equals("Import") ? chooser.showOpenDialog(this) : chooser.showSaveDialog(this);
+        return choice == JFileChooser.APPROVE_OPTION ? chooser.getSelectedFile() : null;
+    }
+
+    // Method to stop a second import or export from starting while one runs
+    private void setTransferEnabled(boolean enabled) {
+        importButton.setEnabled(enabled);
+        exportButton.setEnabled(enabled);
+        workspaceBox.setEnabled(enabled); // The running one reports to the workspace it started in
+    }
+
+    // Method to show why an import or export failed
+    private void showTransferError(Exception ex) {
+        Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+        JOptionPane.showMessageDialog(this, cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); // Show error message
+    }
+
+    // Method to show summary of tasks
+    private void showSummary() {
+        showResults("Summary", () -> {
+            TaskSummary summary = TaskSummary.of(tasks, recurrences, true, 5);
+            List<Object> rows = new ArrayList<>(); // Counts first, then the overdue and upcoming tasks
+            rows.add("High Priority: " + summary.getPriorityCount(Task.Priority.HIGH));
+            rows.add("Medium Priority: " + summary.getPriorityCount(Task.Priority.MEDIUM));
+            rows.add("Low Priority: " + summary.getPriorityCount(Task.Priority.LOW));
+            rows.add("Completed: " + summary.getCompletedCount());
+            rows.add("Overdue: " + summary.getOverdueCount());
+            rows.add("Recurring: " + summary.getRecurringCount() + " (" + summary.getRecurringOverdueCount() + " missed occurrences)");
+            rows.add("Overdue Tasks:");
+            rows.addAll(summary.getOverdueTasks());
+            rows.addAll(summary.getMissedOccurrences()); // Only the earliest, the count above has them all
+            rows.add("Due Next:");
+            rows.addAll(summary.getUpcoming());
+            return rows;
+        });
+    }
 
-        // Show summary dialog with task counts and overdue tasks
-        JOptionPane.showMessageDialog(this, String.format("Summary:\n" +
-                "High Priority: %d\n" +
-                "Medium Priority: %d\n" +
-                "Low Priority: %d\n" +
-                "Completed: %d\n" +
-                "Overdue: %d\n" +
-                "Overdue Tasks:\n%s", highPriorityCount, mediumPriorityCount, lowPriorityCount, completedCount, overdueCount, overdueTasks), "Task Summary", JOptionPane.INFORMATION_MESSAGE);
+    // Method to show the counts of every workspace and what is due next in any of them
+    private void showAllWorkspaces() {
+        showResults("All Workspaces", () -> {
+            Map<String, TaskSummary> summaries = workspaces.summarizeEach(false, 5); // Summarized in parallel, one workspace per fork/join task
+            List<Object> rows = new ArrayList<>(); // A line per workspace, the totals, then the tasks due next
+            for (Map.Entry<String, TaskSummary> entry : summaries.entrySet()) {
+                rows.add(entry.getKey() + ": " + formatCounts(entry.getValue()));
+            }
+            TaskSummary all = TaskSummary.merge(new ArrayList<>(summaries.values()), 5);
+            rows.add("All: " + formatCounts(all));
+            rows.add("Due Next:");
+            rows.addAll(all.getUpcoming());
+            return rows;
+        });
+    }
+
+    // Method to describe a workspace's counts in one row
+    private static String formatCounts(TaskSummary summary) {
+        return summary.getTotal() + " tasks, " + summary.getCompletedCount() + " completed, " + summary.getOverdueCount() + " overdue"
+                + (summary.getRecurringCount() > 0 ? ", " + summary.getRecurringCount() + " recurring" : "");
+    }
+
+    // Method to show the repeating tasks and their next occurrences
+    private void showRecurring() {
+        showResults("Recurring Tasks", () -> {
+            List<Object> rows = new ArrayList<>(recurrences.getAll()); // Rules first, then what is due from today
+            rows.add("Next Occurrences:");
+            rows.addAll(recurrences.occurrences((int) LocalDate.now().toEpochDay(), Integer.MAX_VALUE, 20));
+            return rows;
+        });
     }
 
     // Method to search tasks
     private void searchTasks() {
-        String searchTerm = searchField.getText().toLowerCase(); // Get search term in lower case
-
-        // Filter tasks that match the search term
-        List<String> searchResults = tasks.stream()
-                .filter(task -> task.getDescription().toLowerCase().contains(searchTerm))
-                .map(Task::toString)
-                .collect(Collectors.toList());
-
-        if (searchResults.isEmpty()) { // Check if no tasks match the search term
-            JOptionPane.showMessageDialog(this, "No tasks found.", "Search Results", JOptionPane.INFORMATION_MESSAGE); // Show no tasks found message
-        } else {
-            String resultMessage = String.join("\n", searchResults); // Join search results into a single string
-            JOptionPane.showMessageDialog(this, resultMessage, "Search Results", JOptionPane.INFORMATION_MESSAGE); // Show search results
+        searchTimer.stop(); // Search button runs the pending search now
+        String searchTerm = searchField.getText(); // Get search term
+        if (searchTerm.isEmpty()) { // Nothing to search for
+            cancelResults();
+            resultLabel.setText("Results");
+            return;
+        }
+
+        if (TaskQuery.isQuery(searchTerm)) { // Filters such as priority:high status:pending due:<01-11-2026
+            TaskQuery query;
+            try {
+                query = TaskQuery.parse(searchTerm);
+            } catch (IllegalArgumentException ex) { // Often just a query still being typed
+                cancelResults();
+                resultLabel.setText(ex.getMessage());
+                return;
+            }
+            showResults("Query Results", () -> {
+                TaskQuery.Result result = tasks.query(query);
+                List<Object> rows = new ArrayList<>(); // Page line first, then the tasks on the page
+                rows.add(String.format("Page %d of %d (%d tasks)", result.getPage(), result.getPageCount(), result.getTotal()));
+                rows.addAll(result.getTasks());
+                return rows;
+            });
+            return;
+        }
+
+        if (searchAllBox.isSelected() && !searchTerm.endsWith("*")) { // Closest tasks of every workspace, searched in parallel
+            showResults("Search Results (all workspaces)", () -> workspaces.searchRanked(searchTerm, SEARCH_LIMIT));
+            return;
+        }
+
+        // Rank the closest tasks allowing typos, a trailing * lists the tasks with words starting with the term instead
+        showResults("Search Results", () -> searchTerm.endsWith("*")
+                ? tasks.searchPrefix(searchTerm.substring(0, searchTerm.length() - 1))
+                : tasks.searchRanked(searchTerm, SEARCH_LIMIT));
+    }
+
+    // Method to fill the results view in the background, replacing whatever is shown or still loading
+    private void showResults(String title, Callable<List<?>> query) {
+        cancelResults();
+        resultLabel.setText(title + " (loading...)");
+        resultsWorker = new ResultsWorker(title, query);
+        resultsWorker.execute();
+    }
+
+    // Method to stop the results still loading and clear the view
+    private void cancelResults() {
+        if (resultsWorker != null) {
+            resultsWorker.cancel(true); // Superseded, its rows must not reach the view
+            resultsWorker = null;
         }
+        resultListModel.clear();
     }
 
     // Main method to run the application
     public static void main(String[] args) {
+        TaskMetrics.watchEventQueue(); // Time the event dispatch thread when metrics are on
         SwingUtilities.invokeLater(() -> {
             SmartTaskManager manager = new SmartTaskManager(); // Creating instance of SmartTaskManager
             manager.setVisible(true); // Setting the frame visible
         });
     }
 
-    // Task class to represent a task
-    static class Task {
-        private String description; // Task description
-        private String priority; // Task priority
-        private String deadline; // Task deadline
-        private boolean isCompleted; // Task completion status
+    // Worker that runs a query off the event dispatch thread and hands the rows to the view a chunk at a time
+    private class ResultsWorker extends SwingWorker<Integer, String> {
+        private static final int CHUNK_SIZE = 500; // Rows formatted and shown per chunk
 
-        // Constructor for creating a task
-        public Task(String description, String priority, String deadline) {
-            if (description.isEmpty() || priority.isEmpty() || deadline.isEmpty()) { // Check if any input is empty
-                throw new IllegalArgumentException("All fields must be filled."); // Throw exception for empty input
-            }
-            this.description = description; // Set description
-            this.priority = priority; // Set priority
-            this.deadline = deadline; // Set deadline
-            this.isCompleted = false; // Set completion status to false
-        }
-
-        // Method to mark task as completed
-        public void markCompleted() {
-            isCompleted = true; // Set completion status to true
-        }
+        private final String title; // Title shown above the results
+        private final Callable<List<?>> query; // Produces the rows, tasks are formatted here rather than on the EDT
 
-        // Method to get task description
-        public String getDescription() {
-            return description; // Return description
+        ResultsWorker(String title, Callable<List<?>> query) {
+            this.title = title;
+            this.query = query;
         }
 
-        // Method to get task priority
-        public String getPriority() {
-            return priority; // Return priority
-        }
-
-        // Method to check if task is completed
-        public boolean isCompleted() {
-            return isCompleted; // Return completion status
+        @Override
+        protected Integer doInBackground() throws Exception {
+            List<?> rows = query.call();
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (Object row : rows) {
+                if (isCancelled()) {
+                    break;
+                }
+                chunk.add(row.toString());
+                if (chunk.size() == CHUNK_SIZE) {
+                    publish(chunk.toArray(new String[0]));
+                    chunk.clear();
+                }
+            }
+            publish(chunk.toArray(new String[0]));
+            return rows.size();
         }
 
-        // Method to check if task is overdue
-        public boolean isOverdue() {
-            // Placeholder logic for checking overdue status, should be replaced with actual date comparison
-            return !isCompleted && deadline.compareTo("12-12-2023") < 0; // Check if task is overdue based on placeholder date
+        @Override
+        protected void process(List<String> rows) {
+            if (resultsWorker == this) { // Drop chunks from a worker that has been replaced
+                resultListModel.addAll(rows); // One list event per batch of chunks
+            }
         }
 
-        // Override toString method to return task details
         @Override
-        public String toString() {
-            return String.format("Task: %s | Priority: %s | Deadline: %s | %s", description, priority, deadline, isCompleted ? "Completed" : "Pending"); // Return task details
+        protected void done() {
+            if (resultsWorker != this) {
+                return;
+            }
+            try {
+                int count = get();
+                resultLabel.setText(count == 0 ? "No tasks found." : String.format("%s (%d)", title, count));
+            } catch (CancellationException | InterruptedException ex) {
+                // Replaced by a newer query
+            } catch (ExecutionException ex) {
+                resultLabel.setText(title + " failed: " + ex.getCause().getMessage());
+            }
         }
     }
 }
@@ -1,38 +1,288 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 // SmartTaskManagerCLI class hai jo task manage karti hai
 public class SmartTaskManagerCLI {
-    private List<Task> tasks; // Tasks ko store karne ke liye list
+    private static final int BATCH_SIZE = 10_000; // Batch mode mein itne commands ke baad journal likha jata hai
+    private static final int IO_BUFFER_SIZE = 1 << 16; // Batch mode ke input aur output buffers ka size
+    private static final int SEARCH_LIMIT = 20; // Ranked search mein itne tasks dikhte hain
+
+    private TaskWorkspaces workspaces; // Sab workspaces, har ek ka apna store, journal aur recurring tasks
+    private TaskWorkspace workspace; // Abhi wala workspace, tasks aur recurrences isi ke hain
+    private TaskStore tasks; // Tasks ko store karne ke liye list
+    private TaskRecurrences recurrences; // Repeat hone wale tasks, har rule ek baar store hota hai, occurrences zarurat par banti hain
+    private List<Task> reminders; // Jo tasks abhi overdue hue hain, agle menu se pehle print hote hain
+    private final Set<String> watched = new HashSet<>(); // Jin workspaces ke overdue tasks ke reminders aate hain
 
     // Constructor to initialize the tasks list
     public SmartTaskManagerCLI() {
-        tasks = new ArrayList<>(); // Initializing the list
+        reminders = new ArrayList<>();
+        String name = System.getProperty("smarttaskmanager.workspace", TaskWorkspaces.DEFAULT); // -Dsmarttaskmanager.workspace se shuru ka workspace
+        try {
+            workspaces = TaskWorkspaces.open(TaskStore.defaultDirectory()); // Saved tasks load karte hain, GUI aur server jaisa hi store
+            useWorkspace(name);
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.println("Could not load saved tasks, changes will not be saved: " + ex.getMessage());
+            workspaces = new TaskWorkspaces();
+            try {
+                useWorkspace(TaskWorkspaces.DEFAULT);
+            } catch (IOException unexpected) { // Bina save wale workspaces koi file nahi padhte
+                throw new UncheckedIOException(unexpected);
+            }
+        }
+    }
+
+    // Yeh method current workspace badalta hai, naya naam ho to workspace ban jata hai
+    private void useWorkspace(String name) throws IOException {
+        TaskWorkspace next = workspaces.get(name);
+        if (watched.add(next.getName())) {
+            next.getTasks().addOverdueListener(reminders::add); // Overdue hone par reminder queue karte hain
+        }
+        workspace = next;
+        tasks = next.getTasks();
+        recurrences = next.getRecurrences();
     }
 
     // Main method jo program run karne ke liye entry point hai
-    public static void main(String[] args) {
+    // --batch [file] commands file (ya stdin) se padhta hai, menu ke bina
+    public static void main(String[] args) throws IOException {
         SmartTaskManagerCLI manager = new SmartTaskManagerCLI();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            int errors = manager.runBatch(args.length > 1 && !args[1].equals("-") ? args[1] : null);
+            System.exit(errors == 0 ? 0 : 1); // Koi command fail hua ho to exit code 1
+        }
         manager.run(); // Program start hota hai
     }
 
+    // Yeh method batch mode chalata hai, har line ek command, output ek buffered stream mein
+    private int runBatch(String file) throws IOException {
+        BufferedReader in = file != null
+                ? Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), IO_BUFFER_SIZE);
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), IO_BUFFER_SIZE), false, StandardCharsets.UTF_8); // Har line par flush nahi
+        int errors = 0;
+        int lineNumber = 0;
+        try (in) {
+            tasks.beginBatch(); // Journal har change alag se nahi likhta
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                try {
+                    runCommand(line.trim(), out);
+                } catch (IOException | RuntimeException ex) { // Koi bhi fail hui line baaki run nahi rokti
+                    out.println("Error on line " + lineNumber + ": " + (ex.getMessage() != null ? ex.getMessage() : ex));
+                    errors++;
+                }
+                if (lineNumber % BATCH_SIZE == 0) {
+                    tasks.endBatch(); // Ek batch ke changes ek saath save karte hain
+                    tasks.beginBatch();
+                }
+            }
+        } finally {
+            tasks.endBatch();
+            closeTasks();
+            out.flush();
+        }
+        return errors;
+    }
+
+    // Yeh method batch mode ki ek line chalata hai: add, recur, remove, complete, search, fuzzy, query, summary, upcoming, occurrences,
+    // list, recurring, import, export, metrics, workspace, workspaces, searchall
+    private void runCommand(String line, PrintStream out) throws IOException {
+        if (line.isEmpty() || line.startsWith("#")) { // Khali line aur comments skip
+            return;
+        }
+        int space = line.indexOf(' ');
+        String command = space < 0 ? line : line.substring(0, space);
+        String rest = space < 0 ? "" : line.substring(space + 1).trim();
+        switch (command.toLowerCase(Locale.ROOT)) {
+            case "add": { // add <priority> <DD-MM-YYYY> <description>
+                int first = rest.indexOf(' ');
+                int second = first < 0 ? -1 : rest.indexOf(' ', first + 1);
+                if (second < 0) {
+                    throw new IllegalArgumentException("Use: add <priority> <DD-MM-YYYY> <description>");
+                }
+                Task.Priority priority = Task.Priority.parse(rest.substring(0, first));
+                int deadlineDay = Task.parseDeadline(rest.substring(first + 1, second));
+                tasks.add(new Task(rest.substring(second + 1).trim(), priority, deadlineDay));
+                break;
+            }
+            case "recur": { // recur <priority> <DD-MM-YYYY> <rule> <description>, date pehli occurrence ki deadline hai
+                String[] parts = rest.split(" +", 4);
+                if (parts.length < 4) {
+                    throw new IllegalArgumentException("Use: recur <priority> <DD-MM-YYYY> <rule> <description>");
+                }
+                RecurringTask rule = recurrences.add(parts[3].trim(), Task.Priority.parse(parts[0]), Recurrence.parse(parts[2]), Task.parseDeadline(parts[1]));
+                out.println("Recurring task " + rule.getId() + " added.");
+                break;
+            }
+            case "recurring": // recurring, recurring done <id>, recurring remove <id>
+                runRecurring(rest, out);
+                break;
+            case "occurrences": { // occurrences <DD-MM-YYYY> <DD-MM-YYYY>, dono din shamil
+                String[] days = rest.split(" +");
+                if (days.length != 2) {
+                    throw new IllegalArgumentException("Use: occurrences <DD-MM-YYYY> <DD-MM-YYYY>");
+                }
+                printOccurrences(Task.parseDeadline(days[0]), Task.parseDeadline(days[1]), out);
+                break;
+            }
+            case "remove":
+                tasks.remove(parseIndex(rest));
+                break;
+            case "complete":
+                tasks.markCompleted(parseIndex(rest));
+                break;
+            case "search":
+                printSearch(rest, out);
+                break;
+            case "fuzzy": // fuzzy <term>, sabse milte-julte tasks pehle, typos chalte hain
+                printRanked(rest, out);
+                break;
+            case "query":
+                printQuery(TaskQuery.parse(rest), out);
+                break;
+            case "summary": // summary, ya summary all saare workspaces ka
+                if (rest.equalsIgnoreCase("all")) {
+                    printSummary(workspaces.summarize(true, 0), out);
+                } else {
+                    printSummary(out);
+                }
+                break;
+            case "workspace": // workspace <name>, aage ke commands us workspace par chalte hain
+                if (rest.isEmpty()) {
+                    out.println("Workspace: " + workspace.getName());
+                    break;
+                }
+                tasks.endBatch(); // Purane workspace ke changes likh dete hain
+                try {
+                    useWorkspace(rest);
+                } finally {
+                    tasks.beginBatch();
+                }
+                break;
+            case "workspaces":
+                printWorkspaces(out);
+                break;
+            case "searchall": // searchall <term>, saare workspaces mein ranked search
+                printSearchAll(rest, out);
+                break;
+            case "upcoming":
+                printUpcoming(rest.isEmpty() ? 10 : parseIndex(rest), out);
+                break;
+            case "list":
+                printTasks(out);
+                break;
+            case "import":
+                tasks.endBatch(); // Import apne batches khud banata hai
+                try {
+                    importTasks(rest, out);
+                } finally {
+                    tasks.beginBatch();
+                }
+                break;
+            case "export":
+                exportTasks(rest, out);
+                break;
+            case "metrics":
+                printMetrics(out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    // Index parse karta hai, galat ho to error
+    private int parseIndex(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid index: " + text);
+        }
+    }
+
+    // Yeh method recurring tasks list karta hai, ya ek rule ki agli occurrence complete ya rule remove karta hai
+    private void runRecurring(String rest, PrintStream out) {
+        if (rest.isEmpty()) {
+            printRecurring(out);
+            return;
+        }
+        String[] parts = rest.split(" +");
+        if (parts.length != 2 || !(parts[0].equalsIgnoreCase("done") || parts[0].equalsIgnoreCase("remove"))) {
+            throw new IllegalArgumentException("Use: recurring, recurring done <id> or recurring remove <id>");
+        }
+        int id = parseIndex(parts[1]);
+        RecurringTask rule = parts[0].equalsIgnoreCase("done") ? recurrences.completeNext(id) : recurrences.remove(id);
+        if (rule == null) {
+            throw new IllegalArgumentException("No recurring task with id " + id);
+        }
+    }
+
+    // Yeh method saare repeat rules id ke saath print karta hai
+    private void printRecurring(PrintStream out) {
+        List<RecurringTask> rules = recurrences.getAll();
+        if (rules.isEmpty()) {
+            out.println("No recurring tasks.");
+            return;
+        }
+        out.println("\nRecurring Tasks:");
+        for (RecurringTask rule : rules) {
+            out.printf("%d: %s\n", rule.getId(), rule);
+        }
+    }
+
+    // Yeh method do dino ke beech ki open occurrences print karta hai, sirf wahi banti hain jo print hoti hain
+    private void printOccurrences(int fromDay, int toDay, PrintStream out) {
+        int[] count = new int[1];
+        recurrences.forEachOccurrence(fromDay, toDay, task -> {
+            out.println(formatTask(task));
+            count[0]++;
+            return true;
+        });
+        if (count[0] == 0) {
+            out.println("No occurrences in that range.");
+        }
+    }
+
     // Yeh method program run karta hai
     private void run() {
         Scanner scanner = new Scanner(System.in);
 
         // Infinite loop to keep the program running until user exits
         while (true) {
+            printReminders(); // Naye overdue tasks ke reminders
+
             // Menu display kar raha hai
-            System.out.println("\nSmart Task Manager CLI");
+            System.out.println("\nSmart Task Manager CLI" + (workspace.getName().equals(TaskWorkspaces.DEFAULT) ? "" : " [" + workspace.getName() + "]"));
             System.out.println("1. Add Task");
             System.out.println("2. Remove Task");
             System.out.println("3. Mark Task Completed");
             System.out.println("4. Show Summary");
             System.out.println("5. Search Tasks");
-            System.out.println("6. Exit");
+            System.out.println("6. Upcoming Deadlines");
+            System.out.println("7. Import Tasks");
+            System.out.println("8. Export Tasks");
+            System.out.println("9. Metrics");
+            System.out.println("10. Recurring Tasks");
+            System.out.println("11. Workspaces");
+            System.out.println("12. Exit");
             System.out.print("Choose an option: ");
 
             int choice = 0; // User choice input ke liye variable
@@ -40,7 +290,7 @@ public class SmartTaskManagerCLI {
                 choice = scanner.nextInt(); // User se choice le rahe hain
                 scanner.nextLine(); // Consume newline character
             } catch (InputMismatchException e) {
-                System.out.println("Invalid input. Please enter a number between 1 and 6.");
+                System.out.println("Invalid input. Please enter a number between 1 and 12.");
                 scanner.nextLine(); // Consume the invalid input
                 continue;
             }
@@ -63,7 +313,28 @@ public class SmartTaskManagerCLI {
                     searchTasks(scanner); // Tasks search karne ka method
                     break;
                 case 6:
+                    showUpcoming(); // Aane wali deadlines dikhane ka method
+                    break;
+                case 7:
+                    System.out.print("Enter file to import (.csv, .jsonl or .tasks): ");
+                    transfer(() -> importTasks(scanner.nextLine().trim(), System.out)); // File se tasks add karne ka method
+                    break;
+                case 8:
+                    System.out.print("Enter file to export to (.csv, .jsonl or .tasks): ");
+                    transfer(() -> exportTasks(scanner.nextLine().trim(), System.out)); // Saare tasks file mein likhne ka method
+                    break;
+                case 9:
+                    printMetrics(System.out); // Operations ke timings aur memory dikhane ka method
+                    break;
+                case 10:
+                    manageRecurring(scanner); // Repeat rules dekhne aur agli occurrence complete karne ka method
+                    break;
+                case 11:
+                    manageWorkspaces(scanner); // Workspaces dekhne aur badalne ka method
+                    break;
+                case 12:
                     System.out.println("Exiting..."); // Exit message
+                    closeTasks(); // Journal flush karke band karte hain
                     return; // Program terminate
                 default:
                     System.out.println("Invalid choice. Please try again."); // Invalid choice handling
@@ -76,19 +347,63 @@ public class SmartTaskManagerCLI {
         System.out.print("Enter task description: ");
         String description = scanner.nextLine(); // Task description input
         System.out.print("Enter priority (High/Medium/Low): ");
-        String priority = scanner.nextLine().toLowerCase(); // Priority input
+        String priority = scanner.nextLine(); // Priority input
         System.out.print("Enter deadline (DD-MM-YYYY): ");
         String deadline = scanner.nextLine(); // Deadline input
+        System.out.print("Enter repeat (daily, weekly, monthly, 3d, 2w, 6m, mon,wed,fri; blank for none): ");
+        String repeat = scanner.nextLine().trim(); // Repeat rule input, khali ho to ek hi baar ka task
 
         try {
+            if (!repeat.isEmpty()) { // Har occurrence alag task nahi banta, sirf rule save hota hai
+                recurrences.add(description, Task.Priority.parse(priority), Recurrence.parse(repeat), Task.parseDeadline(deadline));
+                System.out.println("Recurring task added successfully.");
+                return;
+            }
             Task task = new Task(description, priority, deadline); // Naya task create karte hain
-            tasks.add(task); // Task list mein add karte hain
+            tasks.add(task); // Task list mein add karte hain (index, counters aur journal bhi)
             System.out.println("Task added successfully."); // Success message
         } catch (IllegalArgumentException ex) {
             System.out.println("Error: " + ex.getMessage()); // Error handling
         }
     }
 
+    // Yeh method repeat rules dikhata hai aur ek rule ki agli occurrence complete karta hai
+    private void manageRecurring(Scanner scanner) {
+        printRecurring(System.out);
+        if (recurrences.size() == 0) {
+            return;
+        }
+        System.out.print("Enter the id of the recurring task to mark its next occurrence completed (blank to go back): ");
+        String id = scanner.nextLine().trim();
+        if (id.isEmpty()) {
+            return;
+        }
+        try {
+            if (recurrences.completeNext(parseIndex(id)) != null) {
+                System.out.println("Occurrence marked as completed.");
+            } else {
+                System.out.println("Invalid id.");
+            }
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Error: " + ex.getMessage());
+        }
+    }
+
+    // Yeh method har workspace ki ginti dikhata hai aur doosre workspace par le jata hai
+    private void manageWorkspaces(Scanner scanner) {
+        try {
+            printWorkspaces(System.out);
+            System.out.print("Enter workspace to switch to, a new name creates it (blank to stay): ");
+            String name = scanner.nextLine().trim();
+            if (!name.isEmpty()) {
+                useWorkspace(name);
+                System.out.println("Switched to workspace " + workspace.getName() + ".");
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.println("Error: " + ex.getMessage());
+        }
+    }
+
     // Yeh method ek task remove karta hai
     private void removeTask(Scanner scanner) {
         System.out.print("Enter the index of the task to remove: ");
@@ -106,8 +421,7 @@ public class SmartTaskManagerCLI {
         System.out.print("Enter the index of the task to mark as completed: ");
         int index = scanner.nextInt();
         if (index >= 0 && index < tasks.size()) {
-            Task task = tasks.get(index); // Task list se get karte hain
-            task.markCompleted(); // Task ko complete mark karte hain
+            tasks.markCompleted(index); // Task ko complete mark karte hain
             System.out.println("Task marked as completed."); // Success message
         } else {
             System.out.println("Invalid index."); // Invalid index handling
@@ -116,119 +430,206 @@ public class SmartTaskManagerCLI {
 
     // Yeh method summary dikhata hai
     private void showSummary() {
-        int highPriorityCount = 0, mediumPriorityCount = 0, lowPriorityCount = 0;
-        int completedCount = 0, overdueCount = 0;
+        printSummary(System.out);
+        printTasks(System.out);
+    }
 
-        StringBuilder overdueTasks = new StringBuilder(); // Overdue tasks store karne ke liye
+    // Yeh method counters aur overdue tasks print karta hai
+    private void printSummary(PrintStream out) {
+        printSummary(TaskSummary.of(tasks, recurrences, true, 0), out); // Counters task store se aate hain, poori list scan nahi karni padti
+    }
 
-        // Iterate through tasks to count and identify overdue tasks
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            switch (task.getPriority()) {
-                case "high":
-                    highPriorityCount++;
-                    break;
-                case "medium":
-                    mediumPriorityCount++;
-                    break;
-                case "low":
-                    lowPriorityCount++;
-                    break;
-            }
-            if (task.isCompleted()) {
-                completedCount++;
-            }
-            if (task.isOverdue()) {
-                overdueCount++;
-                overdueTasks.append(i).append(": ").append(task.toString()).append("\n");
-            }
+    // Yeh method ek summary print karta hai, ek workspace ki ya sabki milakar
+    private void printSummary(TaskSummary summary, PrintStream out) {
+        StringBuilder overdueTasks = new StringBuilder(); // Overdue tasks store karne ke liye
+        for (Task task : summary.getOverdueTasks()) {
+            overdueTasks.append(formatTask(task)).append("\n");
+        }
+        for (Task task : summary.getMissedOccurrences()) { // Sirf pehli kuch missed occurrences, count poora hota hai
+            overdueTasks.append(formatTask(task)).append(" (recurring)\n");
         }
 
         // Summary print karna
-        System.out.println("\nSummary:");
-        System.out.printf("High Priority: %d\n", highPriorityCount);
-        System.out.printf("Medium Priority: %d\n", mediumPriorityCount);
-        System.out.printf("Low Priority: %d\n", lowPriorityCount);
-        System.out.printf("Completed: %d\n", completedCount);
-        System.out.printf("Overdue: %d\n", overdueCount);
-        System.out.printf("Overdue Tasks:\n%s", overdueTasks.toString());
-
-        // All tasks list print karna
-        System.out.println("\nAll Tasks:");
-        for (int i = 0; i < tasks.size(); i++) {
-            System.out.printf("%d: %s\n", i, tasks.get(i).toString());
+        out.println("\nSummary:");
+        out.printf("High Priority: %d\n", summary.getPriorityCount(Task.Priority.HIGH));
+        out.printf("Medium Priority: %d\n", summary.getPriorityCount(Task.Priority.MEDIUM));
+        out.printf("Low Priority: %d\n", summary.getPriorityCount(Task.Priority.LOW));
+        out.printf("Completed: %d\n", summary.getCompletedCount());
+        out.printf("Overdue: %d\n", summary.getOverdueCount());
+        if (summary.getRecurringCount() > 0) {
+            out.printf("Recurring: %d (%d missed occurrences)\n", summary.getRecurringCount(), summary.getRecurringOverdueCount());
         }
+        out.printf("Overdue Tasks:\n%s", overdueTasks.toString());
     }
 
-    // Yeh method tasks ko search karta hai
-    private void searchTasks(Scanner scanner) {
-        System.out.print("Enter search query: ");
-        String query = scanner.nextLine().toLowerCase();
-        List<String> results = tasks.stream()
-                .filter(task -> task.getDescription().toLowerCase().contains(query)) // Query match karne wale tasks filter karte hain
-                .map(Task::toString)
-                .collect(Collectors.toList());
+    // Yeh method har workspace ke counts print karta hai, workspaces ek saath parallel mein gine jaate hain
+    private void printWorkspaces(PrintStream out) throws IOException {
+        Map<String, TaskSummary> summaries = workspaces.summarizeEach(false, 0);
+        out.println("\nWorkspaces:");
+        for (Map.Entry<String, TaskSummary> entry : summaries.entrySet()) {
+            out.println((entry.getKey().equals(workspace.getName()) ? "* " : "  ") + entry.getKey() + ": " + formatCounts(entry.getValue()));
+        }
+        out.println("All: " + formatCounts(TaskSummary.merge(new ArrayList<>(summaries.values()), 0)));
+    }
 
-        // Search results print karna
-        if (results.isEmpty()) {
-            System.out.println("No tasks found matching the search query.");
+    // Summary ke counts ek line mein
+    private static String formatCounts(TaskSummary summary) {
+        return summary.getTotal() + " tasks, " + summary.getCompletedCount() + " completed, " + summary.getOverdueCount() + " overdue"
+                + (summary.getRecurringCount() > 0 ? ", " + summary.getRecurringCount() + " recurring" : "");
+    }
+
+    // Yeh method saare workspaces mein sabse milte-julte tasks print karta hai, workspace ke naam ke saath
+    private void printSearchAll(String query, PrintStream out) throws IOException {
+        List<TaskWorkspaces.Match> matches = workspaces.searchRanked(query, SEARCH_LIMIT);
+        if (matches.isEmpty()) {
+            out.println("No tasks found matching the search query.");
         } else {
-            results.forEach(System.out::println);
+            matches.forEach(match -> out.println("[" + match.getWorkspace() + "] " + formatTask(match.getTask())));
         }
     }
 
-    // Task class jo ek task define karti hai
-    private static class Task {
-        private String description;
-        private String priority;
-        private String deadline;
-        private boolean completed;
+    // Yeh method task count, memory aur har operation ki latency print karta hai
+    private void printMetrics(PrintStream out) {
+        out.println("\nMetrics:");
+        for (String line : TaskMetrics.report(tasks)) {
+            out.println(line);
+        }
+    }
 
-        // Constructor to initialize a new task
-        public Task(String description, String priority, String deadline) {
-            priority = priority.toLowerCase();
-            if (!priority.equals("high") && !priority.equals("medium") && !priority.equals("low")) {
-                throw new IllegalArgumentException("Invalid priority. Use High, Medium, or Low.");
-            }
-            if (!deadline.matches("\\d{2}-\\d{2}-\\d{4}")) {
-                throw new IllegalArgumentException("Invalid deadline format. Use DD-MM-YYYY.");
-            }
-            this.description = description;
-            this.priority = priority;
-            this.deadline = deadline;
-            this.completed = false;
+    // Yeh method saare tasks index ke saath print karta hai
+    private void printTasks(PrintStream out) {
+        out.println("\nAll Tasks:");
+        for (int i = 0; i < tasks.size(); i++) {
+            out.printf("%d: %s\n", i, formatTask(tasks.get(i)));
         }
+    }
 
-        // Getter for description
-        public String getDescription() {
-            return description;
+    // Import ya export jo IOException de sakta hai
+    private interface Transfer {
+        void run() throws IOException;
+    }
+
+    // Yeh method menu se import/export chalata hai aur error print karta hai
+    private void transfer(Transfer transfer) {
+        try {
+            transfer.run();
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.println("Error: " + ex.getMessage());
         }
+    }
 
-        // Getter for priority
-        public String getPriority() {
-            return priority;
+    // Yeh method file se tasks import karta hai, galat rows skip hoti hain
+    private void importTasks(String file, PrintStream out) throws IOException {
+        TaskTransfer.ImportResult result = TaskTransfer.importTasks(tasks, Paths.get(file));
+        out.println("Imported " + result.getImported() + " tasks.");
+        if (result.getErrorCount() > 0) {
+            out.println("Skipped " + result.getErrorCount() + " invalid rows:");
+            result.getErrors().forEach(out::println);
         }
+    }
 
-        // Check if task is completed
-        public boolean isCompleted() {
-            return completed;
+    // Yeh method saare tasks file mein export karta hai
+    private void exportTasks(String file, PrintStream out) throws IOException {
+        out.println("Exported " + TaskTransfer.exportTasks(tasks, Paths.get(file)) + " tasks.");
+    }
+
+    // Yeh method saare khule workspaces ke journal band karta hai
+    private void closeTasks() {
+        try {
+            workspaces.close();
+        } catch (IOException ex) {
+            System.out.println("Error: " + ex.getMessage());
         }
+    }
+
+    // Yeh method next 10 pending tasks dikhata hai, earliest deadline pehle
+    private void showUpcoming() {
+        printUpcoming(10, System.out);
+    }
+
+    // Yeh method next pending tasks print karta hai
+    private void printUpcoming(int limit, PrintStream out) {
+        List<Task> upcoming = TaskSummary.of(tasks, recurrences, false, limit).getUpcoming(); // Recurring tasks ki agli occurrences bhi
+        if (upcoming.isEmpty()) {
+            out.println("No upcoming deadlines.");
+        } else {
+            out.println("\nUpcoming Deadlines:");
+            upcoming.forEach(task -> out.println(formatTask(task)));
+        }
+    }
+
+    // Yeh method naye overdue tasks ke reminders print karta hai
+    private void printReminders() {
+        tasks.poll(); // Deadlines check karte hain, listener reminders fill karta hai
+        for (Task task : reminders) {
+            System.out.println("Reminder: task is now overdue: " + formatTask(task));
+        }
+        reminders.clear();
+    }
+
+    // Yeh method tasks ko search karta hai
+    private void searchTasks(Scanner scanner) {
+        System.out.print("Enter search query (or filters like priority:high status:pending due:<01-11-2026 sort:deadline): ");
+        try {
+            String query = scanner.nextLine();
+            if (TaskQuery.isQuery(query) || query.endsWith("*")) {
+                printSearch(query, System.out);
+            } else {
+                printRanked(query, System.out); // Menu mein typos ke saath ranked search, batch ka search exact hi rehta hai
+            }
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Error: " + ex.getMessage());
+        }
+    }
 
-        // Mark task as completed
-        public void markCompleted() {
-            completed = true;
+    // Yeh method search results print karta hai
+    private void printSearch(String query, PrintStream out) {
+        if (TaskQuery.isQuery(query)) { // priority:, status:, due: jaise filters ho to query engine
+            printQuery(TaskQuery.parse(query), out);
+            return;
+        }
+        // Index se matching tasks lete hain, trailing * ho to word prefix match hota hai
+        List<Task> matches = query.endsWith("*")
+                ? tasks.searchPrefix(query.substring(0, query.length() - 1))
+                : tasks.search(query);
+        List<String> results = new ArrayList<>();
+        for (Task task : matches) {
+            results.add(formatTask(task));
         }
 
-        // Check if task is overdue
-        public boolean isOverdue() {
-            // Simple check: for demonstration purposes, just comparing with a fixed date
-            return !completed && deadline.compareTo("15-08-2024") < 0;
+        // Search results print karna
+        if (results.isEmpty()) {
+            out.println("No tasks found matching the search query.");
+        } else {
+            results.forEach(out::println);
         }
+    }
 
-        // Task details string representation
-        @Override
-        public String toString() {
-            return (completed ? "[Completed] " : "") + description + " (Priority: " + priority + ", Deadline: " + deadline + ")";
+    // Yeh method sabse milte-julte tasks print karta hai, best match pehle
+    private void printRanked(String query, PrintStream out) {
+        List<Task> matches = tasks.searchRanked(query, SEARCH_LIMIT);
+        if (matches.isEmpty()) {
+            out.println("No tasks found matching the search query.");
+        } else {
+            matches.forEach(task -> out.println(formatTask(task)));
+        }
+    }
+
+    // Yeh method query ka ek page print karta hai
+    private void printQuery(TaskQuery query, PrintStream out) {
+        TaskQuery.Result result = tasks.query(query);
+        if (result.getTotal() == 0) {
+            out.println("No tasks found matching the search query.");
+            return;
         }
+        out.printf("Page %d of %d (%d tasks)\n", result.getPage(), result.getPageCount(), result.getTotal());
+        for (Task task : result.getTasks()) {
+            out.println(formatTask(task));
+        }
+    }
+
+    // Task ko CLI format mein string banata hai
+    private static String formatTask(Task task) {
+        return (task.isCompleted() ? "[Completed] " : "") + task.getDescription() + " (Priority: " + task.getPriority().name().toLowerCase(Locale.ROOT) + ", Deadline: " + task.getDeadline() + ")";
     }
 }
@@ -0,0 +1,174 @@
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+// Task class shared by the GUI and CLI to represent a task
+public class Task {
+    private static final int PRIORITY_MASK = 0x03; // Bits holding the priority ordinal
+    private static final int COMPLETED_FLAG = 0x04; // Bit set once the task is completed
+
+    private final String description; // Task description
+    private final int deadlineDay; // Task deadline as days since 01-01-1970
+    private byte flags; // Priority and completion status packed together
+    private int id = -1; // Id given by the store the task was added to, -1 until then
+
+    // Constructor for creating a task from user input
+    public Task(String description, String priority, String deadline) {
+        this(description, Priority.parse(priority), parseDeadline(deadline));
+    }
+
+    // Constructor for creating a task from already validated values
+    public Task(String description, Priority priority, int deadlineDay) {
+        if (description.isEmpty()) { // Check if description is empty
+            throw new IllegalArgumentException("Task description cannot be empty.");
+        }
+        this.description = description; // Set description
+        this.deadlineDay = deadlineDay; // Set deadline
+        this.flags = (byte) priority.ordinal(); // Set priority, not completed yet
+    }
+
+    // Method to get the id the task's store gave it, -1 if it has not been added
+    public long getId() {
+        return id;
+    }
+
+    // Method used by the stores to record the id they gave the task
+    void setId(long id) {
+        this.id = (int) id;
+    }
+
+    // Method to mark task as completed
+    public void markCompleted() {
+        flags |= COMPLETED_FLAG; // Set completion bit
+    }
+
+    // Method to get task description
+    public String getDescription() {
+        return description;
+    }
+
+    // Method to get task priority
+    public Priority getPriority() {
+        return Priority.VALUES[flags & PRIORITY_MASK];
+    }
+
+    // Method to get task deadline as days since 01-01-1970
+    public int getDeadlineDay() {
+        return deadlineDay;
+    }
+
+    // Method to get task deadline as DD-MM-YYYY
+    public String getDeadline() {
+        return formatDeadline(deadlineDay);
+    }
+
+    // Method to mark a completed task as pending again, used by undo
+    public void markPending() {
+        flags &= ~COMPLETED_FLAG; // Clear completion bit
+    }
+
+    // Method to check if task is completed
+    public boolean isCompleted() {
+        return (flags & COMPLETED_FLAG) != 0;
+    }
+
+    // Method to check if task is overdue today
+    public boolean isOverdue() {
+        return isOverdue(LocalDate.now().toEpochDay());
+    }
+
+    // Method to check if task is overdue on the given day
+    public boolean isOverdue(long today) {
+        return !isCompleted() && deadlineDay < today;
+    }
+
+    // Override toString method to return task details
+    @Override
+    public String toString() {
+        return String.format("Task: %s | Priority: %s | Deadline: %s | %s", description, getPriority(), getDeadline(), isCompleted() ? "Completed" : "Pending");
+    }
+
+    // Method to turn a DD-MM-YYYY deadline into days since 01-01-1970
+    public static int parseDeadline(String deadline) {
+        if (deadline.isEmpty()) { // Check if deadline is empty
+            throw new IllegalArgumentException("All fields must be filled.");
+        }
+        int day = parseDigits(deadline, 0, 2), month = parseDigits(deadline, 3, 5), year = parseDigits(deadline, 6, 10);
+        if (deadline.length() != 10 || deadline.charAt(2) != '-' || deadline.charAt(5) != '-' || day < 0 || month < 0 || year < 0) {
+            throw new IllegalArgumentException("Invalid deadline format. Use DD-MM-YYYY.");
+        }
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException ex) { // Right format but not a real date, e.g. 31-02-2024
+            throw new IllegalArgumentException("Invalid deadline date: " + deadline);
+        }
+    }
+
+    // Method to turn days since 01-01-1970 back into DD-MM-YYYY
+    public static String formatDeadline(int deadlineDay) {
+        LocalDate date = LocalDate.ofEpochDay(deadlineDay);
+        int year = date.getYear();
+        if (year < 0 || year > 9999) { // Outside what parseDeadline accepts
+            return String.format("%02d-%02d-%04d", date.getDayOfMonth(), date.getMonthValue(), year);
+        }
+        char[] text = {'0', '0', '-', '0', '0', '-', '0', '0', '0', '0'}; // Filled digit by digit, String.format is slow when listing many tasks
+        putDigits(text, 0, 2, date.getDayOfMonth());
+        putDigits(text, 3, 5, date.getMonthValue());
+        putDigits(text, 6, 10, year);
+        return new String(text);
+    }
+
+    // Method to write a number into a fixed run of characters, right aligned
+    private static void putDigits(char[] text, int start, int end, int value) {
+        for (int i = end - 1; i >= start; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // Method to read a run of digits, returns -1 if any character is not a digit
+    private static int parseDigits(String text, int start, int end) {
+        if (end > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Task priority levels
+    public enum Priority {
+        HIGH("High"), MEDIUM("Medium"), LOW("Low");
+
+        private static final Priority[] VALUES = values(); // Cached to avoid copying on every lookup
+
+        private final String label; // Name shown to the user
+
+        Priority(String label) {
+            this.label = label;
+        }
+
+        // Method to parse a priority ignoring case
+        public static Priority parse(String text) {
+            for (Priority priority : VALUES) {
+                if (priority.label.equalsIgnoreCase(text)) {
+                    return priority;
+                }
+            }
+            if (text.isEmpty()) { // Check if priority is empty
+                throw new IllegalArgumentException("All fields must be filled.");
+            }
+            throw new IllegalArgumentException("Invalid priority. Use High, Medium, or Low.");
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+// Undo and redo for changes made in the GUI, each step keeps only the tasks it changed and where they were, never a copy of the list
+// A store that cannot put a task back at its old index, such as the columnar store for a task that never had a slot there,
+// adds it at the end instead; getMisplaced() reports how many tasks that happened to in the last undo or redo
+// A step that cannot be put back completely is taken out again and stays where it was, so the store never holds half of it
+public class TaskHistory {
+    private static final int MAX_STEPS = 100; // Older steps are forgotten
+
+    private enum Kind { ADD, REMOVE, COMPLETE }
+
+    // One change to one or more tasks, tasks in list order
+    private static class Step {
+        final Kind kind;
+        final Task[] tasks;
+        final long[] ids; // Id of each task while it is in the store, restoring may hand out a new one
+        final int[] indexes; // Index of each task before it left the list, filled in when it is removed
+
+        Step(Kind kind, Task[] tasks, long[] ids, int[] indexes) {
+            this.kind = kind;
+            this.tasks = tasks;
+            this.ids = ids;
+            this.indexes = indexes;
+        }
+
+        // Method to describe the step for the undo and redo buttons
+        String describe() {
+            String what = tasks.length == 1 ? "task" : tasks.length + " tasks";
+            switch (kind) {
+                case ADD:
+                    return "Add " + what;
+                case REMOVE:
+                    return "Remove " + what;
+                default:
+                    return "Complete " + what;
+            }
+        }
+    }
+
+    private final TaskStore store; // Store the changes are made to
+    private final Deque<Step> undoSteps = new ArrayDeque<>(); // Newest first
+    private final Deque<Step> redoSteps = new ArrayDeque<>(); // Next to redo first, cleared by any new change
+    private int misplaced; // Tasks the last undo or redo could not put back at their old index
+
+    // Constructor taking the store to change
+    public TaskHistory(TaskStore store) {
+        this.store = store;
+    }
+
+    // Method to add a task so it can be undone, returns its id
+    public long add(Task task) {
+        long id = store.add(task);
+        record(new Step(Kind.ADD, new Task[]{task}, new long[]{id}, new int[1]));
+        return id;
+    }
+
+    // Method to remove tasks by id as one step and one journal batch, returns the indexes the removed tasks had, in increasing order
+    public int[] remove(long[] ids) {
+        long[] order = new long[ids.length]; // Index in the high half, position in ids in the low half, so sorting gives list order
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            int index = store.indexOf(ids[i]);
+            if (index >= 0) {
+                order[count++] = ((long) index << 32) | i;
+            }
+        }
+        Arrays.sort(order, 0, count);
+        Step step = new Step(Kind.REMOVE, new Task[count], new long[count], new int[count]);
+        for (int k = 0; k < count; k++) {
+            step.ids[k] = ids[(int) order[k]];
+            step.indexes[k] = (int) (order[k] >>> 32);
+        }
+        int removed = 0;
+        store.beginBatch();
+        try {
+            for (int k = count - 1; k >= 0; k--) { // Last first, so the indexes before each one stay as recorded
+                step.tasks[k] = store.removeById(step.ids[k]);
+                if (step.tasks[k] != null) {
+                    removed++;
+                }
+            }
+        } finally {
+            store.endBatch();
+        }
+        if (removed < count) { // Some were removed elsewhere meanwhile, keep only the ones this step took out
+            Step kept = new Step(Kind.REMOVE, new Task[removed], new long[removed], new int[removed]);
+            for (int k = 0, j = 0; k < count; k++) {
+                if (step.tasks[k] != null) {
+                    kept.tasks[j] = step.tasks[k];
+                    kept.ids[j] = step.ids[k];
+                    kept.indexes[j++] = step.indexes[k];
+                }
+            }
+            step = kept;
+        }
+        if (removed > 0) {
+            record(step);
+        }
+        return step.indexes;
+    }
+
+    // Method to complete tasks by id as one step and one journal batch, returns the number that were pending
+    public int complete(long[] ids) {
+        Task[] tasks = new Task[ids.length];
+        long[] changed = new long[ids.length];
+        int count = 0;
+        store.beginBatch();
+        try {
+            for (long id : ids) {
+                Task task = store.getById(id);
+                if (task != null && !task.isCompleted()) { // Undo must not reopen tasks that were already completed
+                    tasks[count] = store.markCompletedById(id);
+                    changed[count++] = id;
+                }
+            }
+        } finally {
+            store.endBatch();
+        }
+        if (count > 0) {
+            record(new Step(Kind.COMPLETE, Arrays.copyOf(tasks, count), Arrays.copyOf(changed, count), null));
+        }
+        return count;
+    }
+
+    // Method to undo the newest step, returns false if there is none
+    public boolean undo() {
+        Step step = undoSteps.pollFirst();
+        if (step == null) {
+            return false;
+        }
+        misplaced = 0;
+        store.beginBatch();
+        try {
+            switch (step.kind) {
+                case ADD:
+                    takeOut(step);
+                    break;
+                case REMOVE:
+                    putBack(step);
+                    break;
+                default:
+                    for (long id : step.ids) {
+                        store.markPendingById(id);
+                    }
+                    break;
+            }
+        } catch (RuntimeException ex) {
+            undoSteps.addFirst(step); // Nothing changed, it can be tried again
+            throw ex;
+        } finally {
+            store.endBatch();
+        }
+        redoSteps.addFirst(step);
+        return true;
+    }
+
+    // Method to redo the last undone step, returns false if there is none
+    public boolean redo() {
+        Step step = redoSteps.pollFirst();
+        if (step == null) {
+            return false;
+        }
+        misplaced = 0;
+        store.beginBatch();
+        try {
+            switch (step.kind) {
+                case ADD:
+                    putBack(step);
+                    break;
+                case REMOVE:
+                    takeOut(step);
+                    break;
+                default:
+                    for (long id : step.ids) {
+                        store.markCompletedById(id);
+                    }
+                    break;
+            }
+        } catch (RuntimeException ex) {
+            redoSteps.addFirst(step); // Nothing changed, it can be tried again
+            throw ex;
+        } finally {
+            store.endBatch();
+        }
+        undoSteps.addFirst(step);
+        return true;
+    }
+
+    // Method to get how many tasks the last undo or redo added at the end because they could not go back to their old index
+    public int getMisplaced() {
+        return misplaced;
+    }
+
+    // Method to describe the step undo would revert, null if there is none
+    public String getUndoName() {
+        Step step = undoSteps.peekFirst();
+        return step != null ? step.describe() : null;
+    }
+
+    // Method to describe the step redo would apply again, null if there is none
+    public String getRedoName() {
+        Step step = redoSteps.peekFirst();
+        return step != null ? step.describe() : null;
+    }
+
+    // Method to remember a new step, which makes the undone ones unreachable
+    private void record(Step step) {
+        undoSteps.addFirst(step);
+        if (undoSteps.size() > MAX_STEPS) {
+            undoSteps.removeLast();
+        }
+        redoSteps.clear();
+    }
+
+    // Method to remove a step's tasks, remembering where they were; tasks already removed elsewhere are skipped
+    private void takeOut(Step step) {
+        for (int k = 0; k < step.ids.length; k++) {
+            step.indexes[k] = store.indexOf(step.ids[k]); // Still in list order, the tasks have not moved relative to each other
+        }
+        for (int k = step.ids.length - 1; k >= 0; k--) {
+            if (step.indexes[k] >= 0) {
+                step.tasks[k] = store.removeById(step.ids[k]);
+            }
+        }
+    }
+
+    // Method to put a step's tasks back where they were, first to last so each index is right once the ones before are back
+    // If the store fails part way the tasks already back are taken out again and the failure is thrown on
+    private void putBack(Step step) {
+        int k = 0;
+        try {
+            for (; k < step.ids.length; k++) {
+                if (step.indexes[k] >= 0) {
+                    int index = Math.min(step.indexes[k], store.size()); // Others may have removed tasks meanwhile
+                    step.ids[k] = store.restore(index, step.tasks[k]);
+                    if (store.indexOf(step.ids[k]) != index) {
+                        misplaced++;
+                    }
+                }
+            }
+        } catch (RuntimeException ex) {
+            for (int i = k - 1; i >= 0; i--) {
+                if (step.indexes[i] >= 0) {
+                    store.removeById(step.ids[i]);
+                }
+            }
+            misplaced = 0;
+            throw new IllegalStateException("Could not put back " + (step.ids.length == 1 ? "the task" : step.ids.length + " tasks")
+                    + ", nothing was changed: " + ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Append-only journal of task changes with periodic snapshots, so tasks survive a restart
+public class TaskJournal implements Closeable {
+    private static final int JOURNAL_MAGIC = 0x53544D4A; // "STMJ"
+    private static final int SNAPSHOT_MAGIC = 0x53544D53; // "STMS"
+    private static final int VERSION = 1; // File format version
+    private static final int HEADER_SIZE = 16; // Magic, version and generation
+    private static final byte OP_ADD = 1, OP_REMOVE = 2, OP_COMPLETE = 3, OP_PENDING = 4, OP_RESTORE = 5; // Journal record types
+    private static final int COMPLETED_FLAG = 0x04; // Completion bit in a stored task's flags byte
+    private static final int MIN_COMPACT_OPS = 100_000; // Journal records needed before a snapshot is written
+    private static final String JOURNAL_FILE = "tasks.journal";
+    private static final String SNAPSHOT_PREFIX = "tasks-", SNAPSHOT_SUFFIX = ".snapshot";
+    private static final Task.Priority[] PRIORITIES = Task.Priority.values(); // Priority by stored ordinal
+
+    private final Path directory; // Directory holding the journal and snapshots
+    private final FileChannel channel; // Journal file, always written at its end
+    private final FileLock lock; // Keeps a second process from writing the same journal
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024); // Records waiting to be written
+    private long generation; // Snapshot the journal records apply on top of
+    private int journalOps; // Records in the journal since the last snapshot
+    private boolean batching; // Whether records are held in the buffer until the batch ends
+
+    private TaskJournal(Path directory, FileChannel channel, FileLock lock, long generation) {
+        this.directory = directory;
+        this.channel = channel;
+        this.lock = lock;
+        this.generation = generation;
+    }
+
+    // Method to load the saved tasks into a list and open the journal for appending
+    public static TaskJournal open(Path directory, TaskList tasks) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve(JOURNAL_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock = channel.tryLock();
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Tasks in " + directory + " are already open in another window.");
+        }
+        try {
+            long generation = latestSnapshot(directory);
+            if (generation > 0) {
+                loadSnapshot(snapshotPath(directory, generation), tasks);
+            }
+            TaskJournal journal = new TaskJournal(directory, channel, lock, generation);
+            journal.replay(tasks);
+            journal.deleteOldSnapshots();
+            return journal;
+        } catch (IOException | RuntimeException ex) {
+            channel.close(); // Also releases the lock
+            throw ex;
+        }
+    }
+
+    // Method to record an added task
+    public void appendAdd(Task task) {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = reserve(1 + 9 + description.length);
+        out.put(OP_ADD);
+        putTask(out, task, description);
+        written(out);
+    }
+
+    // Method to record a removed task
+    public void appendRemove(int index) {
+        ByteBuffer out = reserve(5);
+        out.put(OP_REMOVE).putInt(index);
+        written(out);
+    }
+
+    // Method to record a completed task
+    public void appendComplete(int index) {
+        ByteBuffer out = reserve(5);
+        out.put(OP_COMPLETE).putInt(index);
+        written(out);
+    }
+
+    // Method to record a completed task made pending again
+    public void appendPending(int index) {
+        ByteBuffer out = reserve(5);
+        out.put(OP_PENDING).putInt(index);
+        written(out);
+    }
+
+    // Method to record a removed task put back at an index
+    public void appendRestore(int index, Task task) {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = reserve(1 + 4 + 9 + description.length);
+        out.put(OP_RESTORE).putInt(index);
+        putTask(out, task, description);
+        written(out);
+    }
+
+    // Method to hold records in the buffer instead of writing each one, or to write them all to disk and stop holding
+    public void setBatching(boolean batching) {
+        this.batching = batching;
+        if (!batching) {
+            flush();
+            force(); // A finished batch survives the machine stopping, not only the program
+        }
+    }
+
+    // Method to check if the journal has grown large next to a fresh snapshot
+    public boolean needsCompaction(int taskCount) {
+        return journalOps >= Math.max(MIN_COMPACT_OPS, taskCount / 4);
+    }
+
+    // Method to write all tasks to a new snapshot and start an empty journal on top of it
+    public void compact(List<Task> tasks) {
+        try {
+            long next = generation + 1;
+            Path snapshot = snapshotPath(directory, next);
+            Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 4);
+                header.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(next).putInt(tasks.size()).flip();
+                writeFully(out, header);
+                ByteBuffer records = ByteBuffer.allocateDirect(256 * 1024);
+                for (Task task : tasks) {
+                    byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+                    if (records.remaining() < 9 + description.length) {
+                        records.flip();
+                        writeFully(out, records);
+                        records.clear();
+                        if (records.capacity() < 9 + description.length) { // Description larger than the buffer
+                            records = ByteBuffer.allocate(9 + description.length);
+                        }
+                    }
+                    putTask(records, task, description);
+                }
+                records.flip();
+                writeFully(out, records);
+                out.force(true); // Snapshot must be on disk before the journal it replaces is dropped
+            }
+            Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE);
+
+            generation = next;
+            buffer.clear();
+            channel.truncate(0);
+            writeHeader(); // From here on a restart loads the new snapshot
+            channel.force(false);
+            journalOps = 0;
+            deleteOldSnapshots();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Method to write buffered records and close the journal
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            channel.force(false);
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Method to replay the journal records on top of the loaded snapshot
+    private void replay(TaskList tasks) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) { // New or empty journal
+            channel.truncate(0);
+            writeHeader();
+            return;
+        }
+        ByteBuffer in = ByteBuffer.allocate((int) size);
+        while (in.hasRemaining() && channel.read(in, in.position()) >= 0) {
+            // Keep reading until the whole journal is in memory
+        }
+        in.flip();
+        if (in.getInt() != JOURNAL_MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Not a task journal: " + directory.resolve(JOURNAL_FILE));
+        }
+        long journalGeneration = in.getLong();
+        if (journalGeneration > generation) {
+            throw new IOException("Snapshot " + journalGeneration + " for " + directory.resolve(JOURNAL_FILE) + " is missing.");
+        }
+        if (journalGeneration < generation) { // Crashed after writing a snapshot, its records are already in it
+            channel.truncate(0);
+            writeHeader();
+            return;
+        }
+
+        int end = in.position();
+        while (in.hasRemaining()) {
+            byte op = in.get();
+            try {
+                if (op == OP_ADD) {
+                    tasks.add(getTask(in));
+                } else if (op == OP_REMOVE) {
+                    tasks.remove(in.getInt());
+                } else if (op == OP_COMPLETE) {
+                    tasks.markCompleted(in.getInt());
+                } else if (op == OP_PENDING) {
+                    tasks.markPending(in.getInt());
+                } else if (op == OP_RESTORE) {
+                    int index = in.getInt();
+                    tasks.restore(index, getTask(in));
+                } else if (unwritten(in, end)) {
+                    break; // Space the file system gave the journal before the program stopped writing it
+                } else {
+                    throw new IOException("Unknown record type " + op + " at byte " + end + " of " + directory.resolve(JOURNAL_FILE) + ".");
+                }
+            } catch (BufferUnderflowException ex) {
+                break; // Last record was only partly written before the program stopped
+            } catch (RuntimeException ex) { // Damaged record or a bug in applying it, the records after it are kept for a look
+                throw new IOException("Could not replay the record at byte " + end + " of " + directory.resolve(JOURNAL_FILE) + ": " + ex, ex);
+            }
+            end = in.position();
+            journalOps++;
+        }
+        if (end < size) {
+            channel.truncate(end); // Drop the torn record
+            channel.force(false);
+        }
+        channel.position(end);
+    }
+
+    // Method to check if a journal holds only zero bytes from an offset on
+    private static boolean unwritten(ByteBuffer in, int from) {
+        for (int i = from; i < in.limit(); i++) {
+            if (in.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Method to load the tasks stored in a snapshot
+    private static void loadSnapshot(Path snapshot, TaskList tasks) throws IOException {
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size()); // Read straight from the page cache
+            if (map.getInt() != SNAPSHOT_MAGIC || map.getInt() != VERSION) {
+                throw new IOException("Not a task snapshot: " + snapshot);
+            }
+            map.getLong(); // Generation, already known from the file name
+            int count = map.getInt();
+            for (int i = 0; i < count; i++) {
+                tasks.add(getTask(map));
+            }
+        }
+    }
+
+    // Method to find the generation of the newest snapshot, 0 if there is none
+    private static long latestSnapshot(Path directory) throws IOException {
+        long latest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    latest = Math.max(latest, Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())));
+                } catch (NumberFormatException ex) {
+                    // Not one of our snapshots
+                }
+            }
+        }
+        return latest;
+    }
+
+    // Method to delete snapshots older than the current one, they may still be mapped so failures are ignored
+    private void deleteOldSnapshots() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*")) {
+            Path current = snapshotPath(directory, generation);
+            for (Path file : files) {
+                if (!file.equals(current)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException ex) {
+                        // Deleted again on the next start
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // Old snapshots only waste space
+        }
+    }
+
+    // Method to get the path of a snapshot
+    private static Path snapshotPath(Path directory, long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+
+    // Method to write the journal header at the start of an empty journal
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(JOURNAL_MAGIC).putInt(VERSION).putLong(generation).flip();
+        channel.position(0);
+        writeFully(channel, header);
+    }
+
+    // Method to get buffer space for a record, flushing first if it does not fit
+    private ByteBuffer reserve(int size) {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        return size <= buffer.capacity() ? buffer : ByteBuffer.allocate(size); // Oversized records are written on their own
+    }
+
+    // Method to write a record out once it is complete
+    private void written(ByteBuffer out) {
+        journalOps++;
+        if (out != buffer) {
+            try {
+                out.flip();
+                writeFully(channel, out);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        if (!batching) {
+            flush(); // Hand each change to the OS so it survives the program stopping
+        }
+    }
+
+    // Method to write the buffered records to the journal file
+    private void flush() {
+        try {
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Method to push the written records from the OS cache to the disk
+    private void force() {
+        try {
+            channel.force(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Method to write a whole buffer to a channel
+    private static void writeFully(FileChannel out, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+
+    // Method to store a task as flags, deadline, length and UTF-8 description, also used by TaskTransfer
+    static void putTask(ByteBuffer out, Task task, byte[] description) {
+        out.put((byte) (task.getPriority().ordinal() | (task.isCompleted() ? COMPLETED_FLAG : 0)));
+        out.putInt(task.getDeadlineDay());
+        out.putInt(description.length);
+        out.put(description);
+    }
+
+    // Method to read a task stored by putTask
+    static Task getTask(ByteBuffer in) {
+        byte flags = in.get();
+        int deadlineDay = in.getInt();
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) { // Length was cut off or never fully written
+            throw new BufferUnderflowException();
+        }
+        byte[] description = new byte[length];
+        in.get(description);
+        Task task = new Task(new String(description, StandardCharsets.UTF_8), PRIORITIES[flags & 0x03], deadlineDay);
+        if ((flags & COMPLETED_FLAG) != 0) {
+            task.markCompleted();
+        }
+        return task;
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Small JSON reader and writer for flat task objects, shared by the JSON lines files and the HTTP API
+public class TaskJson {
+    // Method to read a flat JSON object into field name -> value, strings unescaped and other values as written
+    public static Map<String, String> parseObject(String text) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int[] at = {0};
+        expect(text, at, '{');
+        if (peek(text, at) != '}') {
+            while (true) {
+                String key = readString(text, at);
+                expect(text, at, ':');
+                char first = peek(text, at);
+                if (first == '{' || first == '[') {
+                    throw new IllegalArgumentException("Invalid JSON, nested values are not supported for " + key + ".");
+                }
+                fields.put(key, first == '"' ? readString(text, at) : readLiteral(text, at));
+                if (peek(text, at) == ',') {
+                    at[0]++;
+                    continue;
+                }
+                break;
+            }
+        }
+        expect(text, at, '}');
+        if (peek(text, at) != 0) {
+            throw new IllegalArgumentException("Invalid JSON, unexpected text after the object.");
+        }
+        return fields;
+    }
+
+    // Method to build a task from description, priority, deadline and optional completed fields
+    public static Task toTask(Map<String, String> fields) {
+        String description = fields.get("description"), priority = fields.get("priority"), deadline = fields.get("deadline");
+        if (description == null || priority == null || deadline == null) {
+            throw new IllegalArgumentException("Expected description, priority and deadline.");
+        }
+        return TaskTransfer.newTask(description, priority, deadline, fields.getOrDefault("completed", "false"));
+    }
+
+    // Method to write a task as a JSON object, with its id when the task is in a store
+    public static void appendTask(StringBuilder out, Task task, boolean withId) {
+        out.append('{');
+        if (withId) {
+            out.append("\"id\":").append(task.getId()).append(',');
+        }
+        out.append("\"description\":");
+        appendString(out, task.getDescription());
+        out.append(",\"priority\":\"").append(task.getPriority())
+                .append("\",\"deadline\":\"").append(task.getDeadline())
+                .append("\",\"completed\":").append(task.isCompleted()).append('}');
+    }
+
+    // Method to write a JSON string with the characters JSON requires escaped
+    public static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else if (c == '\r') {
+                out.append("\\r");
+            } else if (c == '\t') {
+                out.append("\\t");
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    // Method to skip spaces and return the next character, 0 at the end of the line
+    private static char peek(String line, int[] at) {
+        at[0] = skipSpace(line, at[0]);
+        return at[0] < line.length() ? line.charAt(at[0]) : 0;
+    }
+
+    // Method to require a character at the current position
+    private static void expect(String line, int[] at, char c) {
+        if (peek(line, at) != c) {
+            throw new IllegalArgumentException("Invalid JSON, expected '" + c + "' at column " + (at[0] + 1) + ".");
+        }
+        at[0]++;
+    }
+
+    private static int skipSpace(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Method to read a JSON string and resolve its escapes
+    private static String readString(String line, int[] at) {
+        expect(line, at, '"');
+        StringBuilder value = new StringBuilder();
+        int i = at[0];
+        while (true) {
+            if (i >= line.length()) {
+                throw new IllegalArgumentException("Invalid JSON, unterminated string.");
+            }
+            char c = line.charAt(i++);
+            if (c == '"') {
+                break;
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escape = i < line.length() ? line.charAt(i++) : 0;
+            switch (escape) {
+                case '"': case '\\': case '/':
+                    value.append(escape);
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > line.length()) {
+                        throw new IllegalArgumentException("Invalid JSON, bad \\u escape.");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException("Invalid JSON, bad \\u escape.");
+                    }
+                    i += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid JSON, bad escape.");
+            }
+        }
+        at[0] = i;
+        return value.toString();
+    }
+
+    // Method to read a bare JSON value such as true, false or a number
+    private static String readLiteral(String line, int[] at) {
+        int i = at[0];
+        while (i < line.length() && line.charAt(i) != ',' && line.charAt(i) != '}' && !Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        String value = line.substring(at[0], i);
+        at[0] = i;
+        return value;
+    }
+}
@@ -0,0 +1,378 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Task list held as objects on the heap, keeps the search index, summary counters, deadline queue and journal in step
+// The indexes are kept up to date from the first task on, so searches, queries and overdue lookups only read and can share a lock
+public class TaskList implements TaskStore {
+    private final Pages tasks = new Pages(); // Id -> task in the order they were added, null once removed
+    private final LiveSlots live = new LiveSlots(); // Ids not removed, maps indexes to ids without shifting the list
+    private final TaskSearchIndex<Task> searchIndex = new TaskSearchIndex<>(); // Index used by search
+    private TaskQueryIndex queryIndex = new TaskQueryIndex(); // Priority, completion and deadline indexes used by queries
+    private final TaskScheduler scheduler = new TaskScheduler(); // Deadline queue used for overdue tasks
+    private final TaskStatistics statistics = new TaskStatistics(scheduler); // Counters used by the summary
+    private TaskJournal journal; // Journal the changes are written to, null when nothing is saved
+
+    // Method to open the task list saved in a directory
+    public static TaskList open(Path directory) throws IOException {
+        TaskList taskList = new TaskList();
+        taskList.journal = TaskJournal.open(directory, taskList); // Replays the saved tasks before journaling starts
+        return taskList;
+    }
+
+    // Method to add a task
+    @Override
+    public long add(Task task) {
+        int id = live.add();
+        task.setId(id);
+        tasks.add(task);
+        searchIndex.add(task, task.getDescription());
+        queryIndex.add(id, task.getPriority(), task.getDeadlineDay(), task.isCompleted());
+        statistics.add(task);
+        scheduler.add(task);
+        if (journal != null) {
+            journal.appendAdd(task);
+            compactIfNeeded();
+        }
+        return id;
+    }
+
+    // Method to remove the task at an index
+    @Override
+    public Task remove(int index) {
+        return remove(live.slotOf(index), index);
+    }
+
+    // Method to remove a task by id
+    @Override
+    public Task removeById(long id) {
+        return live.isLive(id) ? remove((int) id, live.indexOf((int) id)) : null;
+    }
+
+    // Method to remove the task with an id, the index is only needed by the journal
+    private Task remove(int id, int index) {
+        Task task = tasks.set(id, null);
+        live.remove(id);
+        if (live.liveInBlock(id) == 0) { // Every task in its page is gone, the ids stay reserved but the page is freed
+            tasks.dropPage(id);
+        }
+        searchIndex.remove(task);
+        queryIndex.remove(id, task.getPriority(), task.getDeadlineDay());
+        statistics.remove(task);
+        scheduler.remove(task);
+        if (journal != null) {
+            journal.appendRemove(index);
+            compactIfNeeded();
+        }
+        return task;
+    }
+
+    // Method to mark the task at an index as completed
+    @Override
+    public Task markCompleted(int index) {
+        return markCompleted(live.slotOf(index), index);
+    }
+
+    // Method to mark a task as completed by id
+    @Override
+    public Task markCompletedById(long id) {
+        return live.isLive(id) ? markCompleted((int) id, live.indexOf((int) id)) : null;
+    }
+
+    // Method to mark the task with an id as completed, the index is only needed by the journal
+    private Task markCompleted(int id, int index) {
+        Task task = tasks.get(id);
+        if (task.isCompleted()) { // Nothing changes for a task that is already completed
+            return task;
+        }
+        task.markCompleted();
+        queryIndex.markCompleted(id);
+        statistics.markCompleted(task);
+        scheduler.markCompleted(task);
+        if (journal != null) {
+            journal.appendComplete(index);
+            compactIfNeeded();
+        }
+        return task;
+    }
+
+    // Method to mark the completed task at an index as pending again, used when replaying the journal
+    public Task markPending(int index) {
+        return markPending(live.slotOf(index), index);
+    }
+
+    // Method to mark a completed task as pending again by id
+    @Override
+    public Task markPendingById(long id) {
+        return live.isLive(id) ? markPending((int) id, live.indexOf((int) id)) : null;
+    }
+
+    // Method to mark the task with an id as pending, the index is only needed by the journal
+    private Task markPending(int id, int index) {
+        Task task = tasks.get(id);
+        if (!task.isCompleted()) {
+            return task;
+        }
+        task.markPending();
+        queryIndex.markPending(id);
+        statistics.markPending(task);
+        scheduler.add(task); // Becomes overdue again on the next poll if its deadline has passed
+        if (journal != null) {
+            journal.appendPending(index);
+            compactIfNeeded();
+        }
+        return task;
+    }
+
+    // Method to put a removed task back at an index, into its old id when that is still free
+    @Override
+    public long restore(int index, Task task) {
+        if (index < 0 || index > live.size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + live.size());
+        }
+        int before = index > 0 ? live.slotOf(index - 1) : -1;
+        int after = index < live.size() ? live.slotOf(index) : live.slotCount();
+        int id;
+        boolean reindexed = false; // Whether the query index was rebuilt with the task already in it
+        if (after - before > 1) { // Removed tasks left a gap here
+            id = task.getId() > before && task.getId() < after ? (int) task.getId() : before + 1;
+            live.restore(id);
+            tasks.set(id, task);
+        } else if (after == live.slotCount()) { // No gap at the end, same as adding
+            id = live.add();
+            tasks.add(task);
+        } else { // A snapshot closed the gap before the journal was replayed, move the later tasks up one id
+            id = after;
+            live.insert(id);
+            tasks.insert(id, task);
+            for (int i = id + 1; i < tasks.size(); i++) {
+                if (tasks.get(i) != null) {
+                    tasks.get(i).setId(i);
+                }
+            }
+            queryIndex = buildQueryIndex(); // Ids moved, the rebuilt index already holds the task at its new id
+            reindexed = true;
+        }
+        task.setId(id);
+        searchIndex.add(task, task.getDescription());
+        if (!reindexed) {
+            queryIndex.add(id, task.getPriority(), task.getDeadlineDay(), task.isCompleted());
+        }
+        statistics.add(task);
+        scheduler.add(task);
+        if (journal != null) {
+            journal.appendRestore(index, task);
+            compactIfNeeded();
+        }
+        return id;
+    }
+
+    // Method to get the task at an index
+    @Override
+    public Task get(int index) {
+        return tasks.get(live.slotOf(index));
+    }
+
+    // Method to get a task by id
+    @Override
+    public Task getById(long id) {
+        return live.isLive(id) ? tasks.get((int) id) : null;
+    }
+
+    // Method to get the id of the task at an index
+    @Override
+    public long getId(int index) {
+        return live.slotOf(index);
+    }
+
+    // Method to get the index of a task by id
+    @Override
+    public int indexOf(long id) {
+        return live.isLive(id) ? live.indexOf((int) id) : -1;
+    }
+
+    // Method to get the number of tasks
+    @Override
+    public int size() {
+        return live.size();
+    }
+
+    // Method to find tasks whose description contains the query
+    @Override
+    public List<Task> search(String query) {
+        return searchIndex.search(query);
+    }
+
+    // Method to find tasks having a word that starts with the prefix
+    @Override
+    public List<Task> searchPrefix(String prefix) {
+        return searchIndex.searchPrefix(prefix);
+    }
+
+    // Method to find the tasks closest to a query, ranked through the search index
+    @Override
+    public List<Task> searchRanked(String query, int limit) {
+        return searchIndex.searchRanked(new FuzzyQuery(query), limit);
+    }
+
+    // Method to get a page of the tasks matching a query
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        int today = (int) LocalDate.now().toEpochDay();
+        if (!query.getTerms().isEmpty()) { // Text goes through the search index, the other filters are checked on its matches
+            List<Task> matches = new ArrayList<>();
+            for (Task task : searchIndex.search(query.getTerms().get(0))) {
+                if (query.matches(task, today)) {
+                    matches.add(task);
+                }
+            }
+            matches.sort(Comparator.comparingLong(Task::getId)); // Restored tasks come last from the search index, put them back in list order
+            return query.page(matches);
+        }
+        return queryIndex.page(queryIndex.select(query, today), query, today, tasks::get);
+    }
+
+    @Override
+    public int getPriorityCount(Task.Priority priority) {
+        return statistics.getPriorityCount(priority);
+    }
+
+    @Override
+    public int getCompletedCount() {
+        return statistics.getCompletedCount();
+    }
+
+    @Override
+    public int getOverdueCount() {
+        return scheduler.getOverdueCount();
+    }
+
+    @Override
+    public List<Task> getOverdueTasks() {
+        return scheduler.getOverdueTasks();
+    }
+
+    @Override
+    public List<Task> getUpcoming(int limit) {
+        return scheduler.getUpcoming(limit);
+    }
+
+    @Override
+    public void beginBatch() {
+        if (journal != null) {
+            journal.setBatching(true);
+        }
+    }
+
+    @Override
+    public void endBatch() {
+        if (journal != null) {
+            journal.setBatching(false);
+        }
+    }
+
+    @Override
+    public void addOverdueListener(Consumer<Task> listener) {
+        scheduler.addOverdueListener(listener);
+    }
+
+    @Override
+    public void poll() {
+        scheduler.poll();
+    }
+
+    // Method to flush and close the journal
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    // Method to index every task again after their ids have moved
+    private TaskQueryIndex buildQueryIndex() {
+        TaskQueryIndex index = new TaskQueryIndex();
+        for (int id = 0; id < tasks.size(); id++) {
+            Task task = tasks.get(id);
+            if (task != null) {
+                index.add(id, task.getPriority(), task.getDeadlineDay(), task.isCompleted());
+            }
+        }
+        return index;
+    }
+
+    // Method to fold the journal into a new snapshot once it has grown large
+    private void compactIfNeeded() {
+        if (journal.needsCompaction(live.size())) {
+            List<Task> liveTasks = new ArrayList<>(live.size());
+            for (int id = 0; id < tasks.size(); id++) {
+                Task task = tasks.get(id);
+                if (task != null) {
+                    liveTasks.add(task);
+                }
+            }
+            journal.compact(liveTasks);
+        }
+    }
+
+    // Tasks by id in pages of 4096, the same blocks LiveSlots counts; a page is freed once all its tasks are removed,
+    // so removed tasks give back their memory while the store is open and only a bit per removed id is kept until the next start
+    private static class Pages {
+        private static final int PAGE_SHIFT = LiveSlots.BLOCK_SHIFT;
+        private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+        private Task[][] pages = new Task[16][];
+        private int size; // Ids handed out, including removed ones
+
+        Task get(int id) {
+            Task[] page = pages[id >>> PAGE_SHIFT];
+            return page != null ? page[id & (PAGE_SIZE - 1)] : null;
+        }
+
+        // Set the task of an id, returns the one it replaces
+        Task set(int id, Task task) {
+            Task[] page = pages[id >>> PAGE_SHIFT];
+            if (page == null) {
+                if (task == null) {
+                    return null;
+                }
+                page = pages[id >>> PAGE_SHIFT] = new Task[PAGE_SIZE];
+            }
+            Task old = page[id & (PAGE_SIZE - 1)];
+            page[id & (PAGE_SIZE - 1)] = task;
+            return old;
+        }
+
+        // Hand the next id to a task
+        void add(Task task) {
+            if ((size >>> PAGE_SHIFT) >= pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            set(size++, task);
+        }
+
+        // Put a task at an id, moving the tasks from there on up one id
+        void insert(int id, Task task) {
+            add(null);
+            for (int i = size - 1; i > id; i--) {
+                set(i, get(i - 1));
+            }
+            set(id, task);
+        }
+
+        // Free the page holding an id, every task in it must be removed
+        void dropPage(int id) {
+            pages[id >>> PAGE_SHIFT] = null;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
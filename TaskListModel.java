@@ -0,0 +1,97 @@
+import javax.swing.AbstractListModel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// List model that reads rows straight from the task store and formats them only when the JList paints them
+public class TaskListModel extends AbstractListModel<String> {
+    private static final int CACHE_SIZE = 1024; // Formatted rows kept, a few screens worth
+
+    private final TaskStore tasks; // Store the rows come from
+    private final Map<Integer, String> rows = new LinkedHashMap<Integer, String>(CACHE_SIZE * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > CACHE_SIZE; // Evict the least recently painted row
+        }
+    }; // Index -> formatted row
+    private int size; // Size last reported to listeners
+
+    // Constructor taking the store to show
+    public TaskListModel(TaskStore tasks) {
+        this.tasks = tasks;
+        this.size = tasks.size();
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        String row = rows.get(index);
+        if (row == null) { // Format on first paint only
+            try {
+                row = tasks.get(index).toString();
+            } catch (IndexOutOfBoundsException ex) {
+                return ""; // Removed through the HTTP API, a reload is already on its way
+            }
+            rows.put(index, row);
+        }
+        return row;
+    }
+
+    // Method to show tasks appended to the end of the store, one event for the whole batch
+    public void tasksAdded(int count) {
+        if (count <= 0) {
+            return;
+        }
+        int first = size;
+        size += count;
+        fireIntervalAdded(this, first, size - 1);
+    }
+
+    // Method to show that the tasks at some indexes, in increasing order, were removed, with one event
+    public void tasksRemoved(int[] indexes) {
+        if (indexes.length == 0) {
+            return;
+        }
+        int first = indexes[0], last = indexes[indexes.length - 1];
+        Iterator<Integer> it = rows.keySet().iterator();
+        while (it.hasNext()) { // Rows after the first removed one have moved up
+            if (it.next() >= first) {
+                it.remove();
+            }
+        }
+        size -= indexes.length;
+        if (last - first + 1 == indexes.length) { // One block of rows
+            fireIntervalRemoved(this, first, last);
+        } else { // Scattered rows, the list got shorter and everything from the first one on changed
+            fireIntervalRemoved(this, size, size + indexes.length - 1);
+            if (first < size) {
+                fireContentsChanged(this, first, size - 1);
+            }
+        }
+    }
+
+    // Method to show that the tasks between two indexes have changed, with one event
+    public void tasksChanged(int first, int last) {
+        rows.keySet().removeIf(index -> index >= first && index <= last);
+        fireContentsChanged(this, first, last);
+    }
+
+    // Method to redraw every row after changes too large to report one by one
+    public void reload() {
+        rows.clear();
+        int oldSize = size;
+        size = tasks.size();
+        if (oldSize > size) {
+            fireIntervalRemoved(this, size, oldSize - 1);
+        } else if (size > oldSize) {
+            fireIntervalAdded(this, oldSize, size - 1);
+        }
+        if (size > 0) {
+            fireContentsChanged(this, 0, size - 1);
+        }
+    }
+}
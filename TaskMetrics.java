@@ -0,0 +1,208 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Latency histograms, throughput and memory gauges for task operations, shown by the metrics command and panel and over JMX
+// Off unless started with -Dsmarttaskmanager.metrics=true, and then nothing is wrapped or timed
+public class TaskMetrics implements TaskMetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("smarttaskmanager.metrics"); // Constant, so the JIT drops the checks when off
+
+    // Operations timed, the store ones by MeteredTaskStore and the rest by the front ends
+    public enum Operation {
+        ADD, REMOVE, COMPLETE, SEARCH, QUERY, UPCOMING, SUMMARY, IMPORT, EXPORT, EDT_EVENT;
+
+        String label() {
+            return this == EDT_EVENT ? "UI event" : name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // One operation's numbers as read over JMX, times in microseconds
+    public static class OperationStats {
+        private final String name;
+        private final long count;
+        private final double perSecond, meanMicros, p50Micros, p99Micros, maxMicros, totalMillis;
+
+        OperationStats(String name, LatencyHistogram histogram, double seconds) {
+            this.name = name;
+            this.count = histogram.getCount();
+            this.perSecond = seconds > 0 ? count / seconds : 0;
+            this.meanMicros = histogram.getMean() / 1e3;
+            this.p50Micros = histogram.getPercentile(50) / 1e3;
+            this.p99Micros = histogram.getPercentile(99) / 1e3;
+            this.maxMicros = histogram.getMax() / 1e3;
+            this.totalMillis = histogram.getTotal() / 1e6;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getPerSecond() {
+            return perSecond;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+    }
+
+    private static final TaskMetrics INSTANCE = new TaskMetrics();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+    private volatile long startNanos = System.nanoTime(); // Throughput is counted from here
+    private volatile TaskStore tasks; // Store behind the task count gauge
+
+    private TaskMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    // Method to wrap a store so its operations are timed and register the JMX bean, the same store when metrics are off
+    public static TaskStore wrap(TaskStore tasks) {
+        if (!ENABLED) {
+            return tasks;
+        }
+        INSTANCE.tasks = tasks;
+        try {
+            ObjectName name = new ObjectName("SmartTaskManager:type=TaskMetrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+        } catch (JMException ex) {
+            System.err.println("Could not register task metrics with JMX: " + ex.getMessage()); // Metrics still work locally
+        }
+        return new MeteredTaskStore(tasks);
+    }
+
+    // Method to time every event the event dispatch thread handles, to see how long the window stops responding
+    public static void watchEventQueue() {
+        if (ENABLED) {
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(new EventQueue() {
+                @Override
+                protected void dispatchEvent(AWTEvent event) {
+                    long start = System.nanoTime();
+                    try {
+                        super.dispatchEvent(event);
+                    } finally {
+                        record(Operation.EDT_EVENT, start);
+                    }
+                }
+            });
+        }
+    }
+
+    // Method to get the start time for record, 0 without a clock read when metrics are off
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    // Method to record an operation that began at a time from start
+    public static void record(Operation operation, long start) {
+        if (ENABLED) {
+            INSTANCE.histograms[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    // Method to describe the gauges and every operation seen so far, one line each, for the CLI and the GUI panel
+    public static List<String> report(TaskStore tasks) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Tasks: " + tasks.size());
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        lines.add(String.format("Heap: %.1f MB used of %.1f MB", heap.getUsed() / 1e6, (heap.getMax() > 0 ? heap.getMax() : heap.getCommitted()) / 1e6));
+        long mapped = INSTANCE.getMappedBytes();
+        if (mapped > 0) {
+            lines.add(String.format("Mapped files: %.1f MB", mapped / 1e6));
+        }
+        if (!ENABLED) {
+            lines.add("Timings are off, start with -Dsmarttaskmanager.metrics=true to record them.");
+            return lines;
+        }
+        boolean any = false;
+        for (OperationStats stats : INSTANCE.getOperations()) {
+            if (stats.getCount() > 0) {
+                lines.add(String.format("%s: %d ops, %.1f/s, mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us, total %.1f ms",
+                        stats.getName(), stats.getCount(), stats.getPerSecond(), stats.getMeanMicros(), stats.getP50Micros(),
+                        stats.getP99Micros(), stats.getMaxMicros(), stats.getTotalMillis()));
+                any = true;
+            }
+        }
+        if (!any) {
+            lines.add("No operations recorded yet.");
+        }
+        return lines;
+    }
+
+    @Override
+    public int getTaskCount() {
+        TaskStore store = tasks;
+        return store != null ? store.size() : 0;
+    }
+
+    @Override
+    public long getHeapUsedBytes() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public long getMappedBytes() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("mapped")) {
+                used += pool.getMemoryUsed();
+            }
+        }
+        return used;
+    }
+
+    @Override
+    public double getMaxEdtBlockMicros() {
+        return histograms[Operation.EDT_EVENT.ordinal()].getMax() / 1e3;
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        List<OperationStats> operations = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            operations.add(new OperationStats(operation.label(), histograms[operation.ordinal()], seconds));
+        }
+        return operations;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        startNanos = System.nanoTime();
+    }
+}
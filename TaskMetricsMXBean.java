@@ -0,0 +1,22 @@
+import java.util.List;
+
+// Management interface of TaskMetrics, registered as SmartTaskManager:type=TaskMetrics for JConsole and other JMX clients
+public interface TaskMetricsMXBean {
+    // Number of tasks in the store being measured
+    int getTaskCount();
+
+    // Heap in use, in bytes
+    long getHeapUsedBytes();
+
+    // Memory-mapped files in use, in bytes, the column files of the columnar store
+    long getMappedBytes();
+
+    // Longest time a single event kept the event dispatch thread busy, in microseconds, 0 without a window
+    double getMaxEdtBlockMicros();
+
+    // Count, throughput and latency of every operation recorded so far
+    List<TaskMetrics.OperationStats> getOperations();
+
+    // Forget everything recorded so far
+    void reset();
+}
@@ -0,0 +1,307 @@
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+
+// Filters, sort order and page of a task query, parsed from text such as "priority:high status:pending due:<01-11-2026 text:report"
+public class TaskQuery {
+    public static final int DEFAULT_PAGE_SIZE = 50; // Tasks per page unless limit: is given
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public enum Status { ANY, PENDING, COMPLETED, OVERDUE }
+
+    public enum Sort { ADDED, DEADLINE, PRIORITY, DESCRIPTION }
+
+    private EnumSet<Task.Priority> priorities = EnumSet.allOf(Task.Priority.class); // Priorities a task may have
+    private Status status = Status.ANY;
+    private int dueFrom = Integer.MIN_VALUE, dueTo = Integer.MAX_VALUE; // Deadline range as epoch days, both ends included
+    private final List<String> terms = new ArrayList<>(); // Lowercase words every description must contain
+    private Sort sort = Sort.ADDED;
+    private boolean descending;
+    private int page = 1; // Page number, starting at 1
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    // One page of the tasks matching a query
+    public static class Result {
+        private final List<Task> tasks;
+        private final int total; // Matching tasks on all pages
+        private final int page;
+        private final int pageSize;
+
+        Result(List<Task> tasks, int total, int page, int pageSize) {
+            this.tasks = tasks;
+            this.total = total;
+            this.page = page;
+            this.pageSize = pageSize;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public int getPageCount() {
+            return Math.max(1, (total + pageSize - 1) / pageSize);
+        }
+    }
+
+    // Method to parse a query, words without a filter name are matched against the description
+    public static TaskQuery parse(String text) {
+        TaskQuery query = new TaskQuery();
+        for (String token : tokenize(text)) {
+            int colon = token.indexOf(':');
+            String key = colon < 0 ? "text" : token.substring(0, colon).toLowerCase(Locale.ROOT);
+            String value = colon < 0 ? token : token.substring(colon + 1);
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Missing value for " + key + ":");
+            }
+            switch (key) {
+                case "text":
+                    query.terms.add(value.toLowerCase(Locale.ROOT));
+                    break;
+                case "priority":
+                    query.priorities = EnumSet.noneOf(Task.Priority.class);
+                    for (String priority : value.split(",")) {
+                        query.priorities.add(Task.Priority.parse(priority));
+                    }
+                    break;
+                case "status":
+                    query.status = parseStatus(value);
+                    break;
+                case "due":
+                    query.parseDue(value);
+                    break;
+                case "sort":
+                    query.descending = value.startsWith("-");
+                    query.sort = parseSort(query.descending ? value.substring(1) : value);
+                    break;
+                case "page":
+                    query.page = parseNumber(key, value, Integer.MAX_VALUE);
+                    break;
+                case "limit":
+                    query.pageSize = parseNumber(key, value, MAX_PAGE_SIZE);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown filter: " + key + ". Use text, priority, status, due, sort, page or limit.");
+            }
+        }
+        return query;
+    }
+
+    // Method to check if a query uses anything beyond a plain description search
+    public static boolean isQuery(String text) {
+        for (String token : tokenize(text)) {
+            if (token.indexOf(':') > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Method to check a single task against every filter
+    public boolean matches(Task task, int today) {
+        if (!priorities.contains(task.getPriority()) || task.getDeadlineDay() < dueFrom || task.getDeadlineDay() > dueTo) {
+            return false;
+        }
+        if (status == Status.PENDING && task.isCompleted() || status == Status.COMPLETED && !task.isCompleted()
+                || status == Status.OVERDUE && !task.isOverdue(today)) {
+            return false;
+        }
+        return matchesText(task.getDescription().toLowerCase(Locale.ROOT));
+    }
+
+    // Method to check a lowercase description against the text filters
+    public boolean matchesText(String description) {
+        for (String term : terms) {
+            if (!description.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Method to get the ascending comparator for the sort order, null when tasks stay in the order they were added
+    public Comparator<Task> comparator() {
+        Comparator<Task> comparator;
+        switch (sort) {
+            case DEADLINE:
+                comparator = Comparator.comparingInt(Task::getDeadlineDay);
+                break;
+            case PRIORITY:
+                comparator = Comparator.comparing(Task::getPriority).thenComparingInt(Task::getDeadlineDay);
+                break;
+            case DESCRIPTION:
+                comparator = Comparator.comparing(Task::getDescription, String.CASE_INSENSITIVE_ORDER);
+                break;
+            default:
+                return null;
+        }
+        return comparator;
+    }
+
+    // Method to sort matching tasks, given in the order they were added, and cut out the requested page
+    public Result page(List<Task> matches) {
+        Comparator<Task> comparator = comparator();
+        if (comparator != null) {
+            matches.sort(comparator); // Stable, so ties stay in the order they were added
+        }
+        if (descending) { // Exact reverse, ties included, the same order the indexes give
+            Collections.reverse(matches);
+        }
+        return pageOf(matches, matches.size());
+    }
+
+    // Method to cut the requested page out of tasks that are already in order, total counts every match
+    public Result pageOf(List<Task> ordered, int total) {
+        int from = (int) Math.min(ordered.size(), (long) (page - 1) * pageSize);
+        int to = Math.min(ordered.size(), from + pageSize);
+        return new Result(new ArrayList<>(ordered.subList(from, to)), total, page, pageSize);
+    }
+
+    // Method to get how many tasks in order are needed to fill the requested page
+    public int needed() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) page * pageSize);
+    }
+
+    public EnumSet<Task.Priority> getPriorities() {
+        return priorities;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getDueFrom() {
+        return dueFrom;
+    }
+
+    public int getDueTo() {
+        return dueTo;
+    }
+
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    // Method to read due:<date, due:<=date, due:>date, due:>=date, due:date or due:date..date
+    private void parseDue(String value) {
+        int range = value.indexOf("..");
+        if (range >= 0) {
+            dueFrom = Math.max(dueFrom, parseDate(value.substring(0, range)));
+            dueTo = Math.min(dueTo, parseDate(value.substring(range + 2)));
+        } else if (value.startsWith("<=")) {
+            dueTo = Math.min(dueTo, parseDate(value.substring(2)));
+        } else if (value.startsWith(">=")) {
+            dueFrom = Math.max(dueFrom, parseDate(value.substring(2)));
+        } else if (value.startsWith("<")) {
+            dueTo = Math.min(dueTo, parseDate(value.substring(1)) - 1);
+        } else if (value.startsWith(">")) {
+            dueFrom = Math.max(dueFrom, parseDate(value.substring(1)) + 1);
+        } else {
+            int day = parseDate(value);
+            dueFrom = Math.max(dueFrom, day);
+            dueTo = Math.min(dueTo, day);
+        }
+    }
+
+    // Method to read a date as DD-MM-YYYY like deadlines, YYYY-MM-DD, or today
+    private static int parseDate(String value) {
+        if (value.equalsIgnoreCase("today")) {
+            return (int) LocalDate.now().toEpochDay();
+        }
+        if (value.length() == 10 && value.charAt(4) == '-') {
+            try {
+                return (int) LocalDate.parse(value).toEpochDay();
+            } catch (DateTimeException ex) {
+                throw new IllegalArgumentException("Invalid date: " + value);
+            }
+        }
+        return Task.parseDeadline(value);
+    }
+
+    private static Status parseStatus(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "pending":
+                return Status.PENDING;
+            case "completed":
+            case "done":
+                return Status.COMPLETED;
+            case "overdue":
+                return Status.OVERDUE;
+            default:
+                throw new IllegalArgumentException("Invalid status: " + value + ". Use pending, completed or overdue.");
+        }
+    }
+
+    private static Sort parseSort(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "added":
+                return Sort.ADDED;
+            case "deadline":
+            case "due":
+                return Sort.DEADLINE;
+            case "priority":
+                return Sort.PRIORITY;
+            case "description":
+            case "text":
+                return Sort.DESCRIPTION;
+            default:
+                throw new IllegalArgumentException("Invalid sort: " + value + ". Use added, deadline, priority or description.");
+        }
+    }
+
+    private static int parseNumber(String key, String value, int max) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= 1 && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException ex) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + key + ": " + value + ". Use a number from 1 to " + max + ".");
+    }
+
+    // Method to split a query on spaces, double quotes keep spaces in a value: text:"weekly report"
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+// Secondary indexes over task ids used by queries: a bitset per priority, a completed bitset and ids sorted by deadline
+public class TaskQueryIndex {
+    private static final Task.Priority[] PRIORITIES = Task.Priority.values();
+
+    private final BitSet[] byPriority = new BitSet[PRIORITIES.length]; // Priority ordinal -> ids with it, together every id
+    private final BitSet completed = new BitSet(); // Ids of completed tasks
+    private final TreeMap<Integer, IdList> byDeadline = new TreeMap<>(); // Deadline day -> ids due that day, ascending
+
+    public TaskQueryIndex() {
+        for (int i = 0; i < byPriority.length; i++) {
+            byPriority[i] = new BitSet();
+        }
+    }
+
+    // Method to index a task under its id
+    public void add(int id, Task.Priority priority, int deadlineDay, boolean isCompleted) {
+        byPriority[priority.ordinal()].set(id);
+        completed.set(id, isCompleted);
+        byDeadline.computeIfAbsent(deadlineDay, day -> new IdList()).add(id);
+    }
+
+    // Method to drop a task from the index
+    public void remove(int id, Task.Priority priority, int deadlineDay) {
+        byPriority[priority.ordinal()].clear(id);
+        completed.clear(id);
+        IdList ids = byDeadline.get(deadlineDay);
+        if (ids != null && ids.remove(id) && ids.size == 0) {
+            byDeadline.remove(deadlineDay);
+        }
+    }
+
+    // Method to record that a task has been completed
+    public void markCompleted(int id) {
+        completed.set(id);
+    }
+
+    // Method to record that a completed task is pending again
+    public void markPending(int id) {
+        completed.clear(id);
+    }
+
+    // Method to get the ids matching the priority, status and deadline filters of a query, text is left to the caller
+    public BitSet select(TaskQuery query, int today) {
+        BitSet ids = new BitSet();
+        for (Task.Priority priority : query.getPriorities()) {
+            ids.or(byPriority[priority.ordinal()]);
+        }
+        int dueFrom = query.getDueFrom(), dueTo = dueTo(query, today);
+        switch (query.getStatus()) {
+            case COMPLETED:
+                ids.and(completed);
+                break;
+            case OVERDUE:
+            case PENDING:
+                ids.andNot(completed);
+                break;
+            default:
+                break;
+        }
+        if (dueFrom > Integer.MIN_VALUE || dueTo < Integer.MAX_VALUE) {
+            BitSet due = new BitSet();
+            if (dueFrom <= dueTo) {
+                for (IdList day : byDeadline.subMap(dueFrom, true, dueTo, true).values()) {
+                    for (int i = 0; i < day.size; i++) {
+                        due.set(day.ids[i]);
+                    }
+                }
+            }
+            ids.and(due);
+        }
+        return ids;
+    }
+
+    // Method to list ids from a set in the query's sort order, stopping once limit ids are found
+    // Added order comes from the bitset, deadline and priority order from the deadline index, description order is left to the caller
+    public int[] order(BitSet ids, TaskQuery query, int today, int limit) {
+        int[] ordered = new int[Math.min(limit, ids.cardinality())];
+        if (ordered.length == 0) { // Also covers a deadline range that is empty
+            return ordered;
+        }
+        int count = 0;
+        boolean descending = query.isDescending();
+        NavigableMap<Integer, IdList> days = byDeadline.subMap(query.getDueFrom(), true, dueTo(query, today), true); // Only days the filters allow
+        if (descending) {
+            days = days.descendingMap();
+        }
+        switch (query.getSort()) {
+            case DEADLINE:
+                count = collectByDeadline(ids, days, descending, ordered, 0);
+                break;
+            case PRIORITY:
+                for (int p = 0; p < PRIORITIES.length && count < ordered.length; p++) {
+                    BitSet withPriority = (BitSet) byPriority[descending ? PRIORITIES.length - 1 - p : p].clone();
+                    withPriority.and(ids);
+                    count = collectByDeadline(withPriority, days, descending, ordered, count);
+                }
+                break;
+            default:
+                if (descending) {
+                    for (int id = ids.length() - 1; id >= 0 && count < ordered.length; id = ids.previousSetBit(id - 1)) {
+                        ordered[count++] = id;
+                    }
+                } else {
+                    for (int id = ids.nextSetBit(0); id >= 0 && count < ordered.length; id = ids.nextSetBit(id + 1)) {
+                        ordered[count++] = id;
+                    }
+                }
+                break;
+        }
+        return count == ordered.length ? ordered : Arrays.copyOf(ordered, count);
+    }
+
+    // Method to turn the ids left by the filters into the requested page of tasks
+    public TaskQuery.Result page(BitSet ids, TaskQuery query, int today, IntFunction<Task> taskById) {
+        List<Task> tasks = new ArrayList<>();
+        if (query.getSort() == TaskQuery.Sort.DESCRIPTION) { // No index for it, every match is sorted
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                tasks.add(taskById.apply(id));
+            }
+            return query.page(tasks);
+        }
+        for (int id : order(ids, query, today, query.needed())) {
+            tasks.add(taskById.apply(id));
+        }
+        return query.pageOf(tasks, ids.cardinality());
+    }
+
+    // Method to get the last deadline a query allows, overdue tasks are due before today
+    private static int dueTo(TaskQuery query, int today) {
+        return query.getStatus() == TaskQuery.Status.OVERDUE ? Math.min(query.getDueTo(), today - 1) : query.getDueTo();
+    }
+
+    // Method to pass the ids due from one day up to but not including another to an action, earliest day first and in id order within a day,
+    // until the action returns false
+    public void forEachDue(int fromDay, int toDay, IntPredicate action) {
+        if (fromDay >= toDay) {
+            return;
+        }
+        for (IdList day : byDeadline.subMap(fromDay, true, toDay, false).values()) {
+            for (int i = 0; i < day.size; i++) {
+                if (!action.test(day.ids[i])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Method to keep only the ids a test accepts, used for the text filters
+    public static BitSet filter(BitSet ids, IntPredicate test) {
+        BitSet kept = new BitSet();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            if (test.test(id)) {
+                kept.set(id);
+            }
+        }
+        return kept;
+    }
+
+    // Method to append ids from a set in deadline order, ties in the order they were added, until the array is full
+    private static int collectByDeadline(BitSet ids, NavigableMap<Integer, IdList> days, boolean descending, int[] ordered, int count) {
+        for (Map.Entry<Integer, IdList> day : days.entrySet()) {
+            IdList list = day.getValue();
+            for (int i = 0; i < list.size && count < ordered.length; i++) {
+                int id = list.ids[descending ? list.size - 1 - i : i];
+                if (ids.get(id)) {
+                    ordered[count++] = id;
+                }
+            }
+            if (count == ordered.length) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    // Growable sorted array of ids due on one day
+    private static class IdList {
+        private int[] ids = new int[2];
+        private int size;
+
+        // Add an id, new tasks arrive in increasing order and go on the end, restored ones are inserted in place
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            int at = size == 0 || ids[size - 1] < id ? size : -Arrays.binarySearch(ids, 0, size, id) - 1;
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        // Remove an id, returns false if it was not there
+        boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
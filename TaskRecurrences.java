@@ -0,0 +1,191 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+// Recurring tasks of a task directory, one rule per line in recurring.jsonl, expanded into occurrences only for the days asked for
+// Summaries count missed occurrences from the rules, so years of daily chores cost one object each
+// The file starts with a {"nextId":n} line so ids of removed rules are never handed out again; files without it still load
+public class TaskRecurrences {
+    private static final String FILE = "recurring.jsonl";
+    private static final int LAST_DAY = (int) Math.min(Integer.MAX_VALUE, java.time.LocalDate.MAX.toEpochDay()); // Occurrences stop here
+
+    private final Path file; // Rules file, null when nothing is saved
+    private final List<RecurringTask> rules = new ArrayList<>(); // In the order they were added
+    private int nextId; // Id for the next rule
+
+    // Constructor for rules that are not saved
+    public TaskRecurrences() {
+        this(null);
+    }
+
+    private TaskRecurrences(Path file) {
+        this.file = file;
+    }
+
+    // Method to load the rules saved in a directory
+    public static TaskRecurrences open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        TaskRecurrences recurrences = new TaskRecurrences(directory.resolve(FILE));
+        if (Files.exists(recurrences.file)) {
+            int line = 0;
+            for (String text : Files.readAllLines(recurrences.file, StandardCharsets.UTF_8)) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    Map<String, String> fields = TaskJson.parseObject(text);
+                    if (!fields.containsKey("id") && fields.containsKey("nextId")) { // Id counter, not a rule
+                        recurrences.nextId = Math.max(recurrences.nextId, Integer.parseInt(fields.get("nextId")));
+                        continue;
+                    }
+                    RecurringTask rule = new RecurringTask(Integer.parseInt(fields.get("id")), fields.get("description"),
+                            Task.Priority.parse(fields.get("priority")), Recurrence.parse(fields.get("repeat")),
+                            Task.parseDeadline(fields.get("start")), Long.parseLong(fields.get("done")));
+                    recurrences.rules.add(rule);
+                    recurrences.nextId = Math.max(recurrences.nextId, rule.getId() + 1);
+                } catch (RuntimeException ex) { // Missing fields show up as NullPointerException
+                    throw new IOException("Invalid recurring task on line " + line + " of " + recurrences.file, ex);
+                }
+            }
+        }
+        return recurrences;
+    }
+
+    // Method to add a recurring task whose first occurrence is due on a day
+    public synchronized RecurringTask add(String description, Task.Priority priority, Recurrence recurrence, int startDay) {
+        RecurringTask rule = new RecurringTask(nextId, description, priority, recurrence, startDay, 0);
+        List<RecurringTask> saved = new ArrayList<>(rules);
+        saved.add(rule);
+        save(saved, nextId + 1, null); // Nothing changes here unless the file was written
+        rules.add(rule);
+        nextId++;
+        return rule;
+    }
+
+    // Method to stop a task recurring, null if there is no rule with the id
+    public synchronized RecurringTask remove(int id) {
+        RecurringTask rule = find(id);
+        if (rule != null) {
+            List<RecurringTask> saved = new ArrayList<>(rules);
+            saved.remove(rule);
+            save(saved, nextId, null);
+            rules.remove(rule);
+        }
+        return rule;
+    }
+
+    // Method to complete the earliest open occurrence of a rule, null if there is no rule with the id
+    public synchronized RecurringTask completeNext(int id) {
+        RecurringTask rule = find(id);
+        if (rule != null) {
+            save(rules, nextId, rule);
+            rule.completeNext();
+        }
+        return rule;
+    }
+
+    // Method to get every rule in the order they were added
+    public synchronized List<RecurringTask> getAll() {
+        return new ArrayList<>(rules);
+    }
+
+    public synchronized int size() {
+        return rules.size();
+    }
+
+    // Method to count the open occurrences due before today across every rule, computed rather than listed
+    public synchronized long getOverdueCount(int today) {
+        long count = 0;
+        for (RecurringTask rule : rules) {
+            count += rule.getOverdueCount(today);
+        }
+        return count;
+    }
+
+    // Method to list up to limit open occurrences due between two days, both included, earliest first
+    public List<Task> occurrences(int fromDay, int toDay, int limit) {
+        List<Task> occurrences = new ArrayList<>();
+        if (limit > 0) {
+            forEachOccurrence(fromDay, toDay, task -> {
+                occurrences.add(task);
+                return occurrences.size() < limit;
+            });
+        }
+        return occurrences;
+    }
+
+    // Method to hand open occurrences due between two days to an action, earliest first, until it returns false
+    // Each rule is stepped one occurrence at a time through a merge, so a long window costs only what is read of it
+    public synchronized void forEachOccurrence(int fromDay, int toDay, Predicate<Task> action) {
+        PriorityQueue<long[]> next = new PriorityQueue<>((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1])); // Day, rule index, occurrence
+        int last = Math.min(toDay, LAST_DAY);
+        for (int i = 0; i < rules.size(); i++) {
+            RecurringTask rule = rules.get(i);
+            long number = Math.max(rule.getDone(), rule.getRecurrence().countBefore(rule.getStartDay(), fromDay));
+            long day = rule.getRecurrence().occurrence(rule.getStartDay(), number);
+            if (day <= last) {
+                next.add(new long[]{day, i, number});
+            }
+        }
+        while (!next.isEmpty()) {
+            long[] head = next.poll();
+            RecurringTask rule = rules.get((int) head[1]);
+            if (!action.test(rule.occurrence(head[2]))) {
+                return;
+            }
+            long day = rule.getRecurrence().occurrence(rule.getStartDay(), ++head[2]);
+            if (day <= last) {
+                head[0] = day;
+                next.add(head);
+            }
+        }
+    }
+
+    private RecurringTask find(int id) {
+        for (RecurringTask rule : rules) {
+            if (rule.getId() == id) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    // Method to write the rules a change would leave to a new file and swap it in, so a crash leaves the old file or the new one
+    // The caller changes its rules only once this returns, so a failed write leaves memory matching the file; completing is
+    // written with one more occurrence done than it has
+    private void save(List<RecurringTask> saved, int savedNextId, RecurringTask completing) {
+        if (file == null) {
+            return;
+        }
+        Path temp = file.resolveSibling(FILE + ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write("{\"nextId\":" + savedNextId + "}\n");
+                StringBuilder row = new StringBuilder(128);
+                for (RecurringTask rule : saved) {
+                    row.setLength(0);
+                    row.append("{\"id\":").append(rule.getId()).append(",\"description\":");
+                    TaskJson.appendString(row, rule.getDescription());
+                    row.append(",\"priority\":\"").append(rule.getPriority()).append("\",\"repeat\":");
+                    TaskJson.appendString(row, rule.getRecurrence().toString());
+                    row.append(",\"start\":\"").append(Task.formatDeadline(rule.getStartDay()))
+                            .append("\",\"done\":").append(rule == completing ? rule.getDone() + 1 : rule.getDone()).append("}\n");
+                    out.write(row.toString());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
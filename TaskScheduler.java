@@ -0,0 +1,124 @@
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// Keeps pending tasks ordered by deadline and reports when they become overdue
+// Only add, remove and poll change it; the getters count deadlines passed since the last poll without moving them, so they can run side by side
+public class TaskScheduler {
+    private final Clock clock; // Clock used to decide which deadlines have passed
+    private final TreeMap<Integer, Set<Task>> pending = new TreeMap<>(); // Deadline day -> pending tasks due that day, in insertion order
+    private final Set<Task> overdueTasks = new LinkedHashSet<>(); // Overdue tasks in the order they fell due
+    private final List<Consumer<Task>> overdueListeners = new ArrayList<>(); // Notified when a task becomes overdue
+    private int pendingCount; // Number of pending tasks across all days
+
+    // Constructor using the system clock
+    public TaskScheduler() {
+        this(Clock.systemDefaultZone());
+    }
+
+    // Constructor with a custom clock
+    public TaskScheduler(Clock clock) {
+        this.clock = clock;
+    }
+
+    // Method to start tracking a task's deadline
+    public void add(Task task) {
+        if (task.isCompleted()) { // Completed tasks never become overdue
+            return;
+        }
+        pending.computeIfAbsent(task.getDeadlineDay(), day -> new LinkedHashSet<>()).add(task); // Few distinct days, so this is close to O(1)
+        pendingCount++;
+    }
+
+    // Method to stop tracking a removed task
+    public void remove(Task task) {
+        Set<Task> due = pending.get(task.getDeadlineDay());
+        if (due != null && due.remove(task)) {
+            pendingCount--;
+            if (due.isEmpty()) {
+                pending.remove(task.getDeadlineDay());
+            }
+        } else {
+            overdueTasks.remove(task);
+        }
+    }
+
+    // Method to stop tracking a completed task
+    public void markCompleted(Task task) {
+        remove(task); // A completed task is neither pending nor overdue
+    }
+
+    // Method to be notified when a task becomes overdue
+    public void addOverdueListener(Consumer<Task> listener) {
+        overdueListeners.add(listener);
+    }
+
+    // Method to move tasks whose deadline has passed to the overdue list and notify listeners
+    public void poll() {
+        int today = today();
+        if (pending.isEmpty() || pending.firstKey() >= today) { // Nothing has fallen due since the last poll
+            return;
+        }
+        List<Task> due = new ArrayList<>();
+        Iterator<Set<Task>> days = pending.headMap(today).values().iterator();
+        while (days.hasNext()) { // Only looks at days that have passed
+            Set<Task> tasks = days.next();
+            overdueTasks.addAll(tasks);
+            due.addAll(tasks);
+            pendingCount -= tasks.size();
+            days.remove();
+        }
+        if (overdueListeners.isEmpty()) {
+            return;
+        }
+        for (Task task : due) { // Notify after the queue is consistent so listeners can query it
+            for (Consumer<Task> listener : overdueListeners) {
+                listener.accept(task);
+            }
+        }
+    }
+
+    // Method to get the next pending tasks to fall due, earliest deadline first
+    public List<Task> getUpcoming(int limit) {
+        List<Task> upcoming = new ArrayList<>(Math.min(limit, pendingCount));
+        for (Map.Entry<Integer, Set<Task>> day : pending.tailMap(today()).entrySet()) { // Days already passed are overdue even before the next poll
+            for (Task task : day.getValue()) {
+                if (upcoming.size() == limit) {
+                    return upcoming;
+                }
+                upcoming.add(task);
+            }
+        }
+        return upcoming;
+    }
+
+    // Method to get the number of overdue tasks
+    public int getOverdueCount() {
+        int count = overdueTasks.size();
+        for (Set<Task> tasks : pending.headMap(today()).values()) { // Fell due since the last poll, usually none
+            count += tasks.size();
+        }
+        return count;
+    }
+
+    // Method to get the overdue tasks in the order they fell due
+    public List<Task> getOverdueTasks() {
+        List<Task> overdue = new ArrayList<>(overdueTasks);
+        for (Set<Task> tasks : pending.headMap(today()).values()) {
+            overdue.addAll(tasks);
+        }
+        return overdue;
+    }
+
+    // Method to get today's date as days since 01-01-1970 on the scheduler's clock
+    private int today() {
+        return (int) LocalDate.now(clock).toEpochDay();
+    }
+}
@@ -0,0 +1,446 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Inverted index over task descriptions shared by the Swing and CLI front ends
+// Searches only read it, so they can run side by side; add and remove need the caller's exclusive lock
+public class TaskSearchIndex<T> {
+    private static final int GRAM_LENGTH = 3; // Length of the n-grams used for substring search
+    private static final char WORD_START = '\0', WORD_END = '\1'; // Padding around a word for its letter pairs, never part of a word
+
+    private final GramMap gramPostings = new GramMap(); // Trigram -> ids of tasks containing it
+    private final TreeMap<String, IntList> tokenPostings = new TreeMap<>(); // Word token -> ids, sorted for prefix search
+    private final List<String> vocabulary = new ArrayList<>(); // Word number -> word token, in the order first seen
+    private final List<IntList> vocabularyPostings = new ArrayList<>(); // Word number -> ids, the same lists as tokenPostings
+    private final GramMap pairWords = new GramMap(); // Padded letter pair -> numbers of the words containing it, for typo candidates
+    private final List<T> items = new ArrayList<>(); // Id -> task (null once removed)
+    private final List<String> texts = new ArrayList<>(); // Id -> lowercased description, computed once on add
+    private final Map<T, Integer> ids = new IdentityHashMap<>(); // Task -> id, used on remove
+    private int removedCount; // Removed ids still present in the posting lists
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new); // Score arrays of each searching thread
+
+    // Method to add a task to the index
+    public void add(T item, String description) {
+        int id = items.size(); // Ids are handed out in insertion order so postings stay sorted
+        String text = description.toLowerCase(Locale.ROOT); // Lowercase once here instead of on every query
+        items.add(item);
+        texts.add(text);
+        ids.put(item, id);
+
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) { // Index every trigram of the description
+            gramPostings.getOrCreate(gramKey(text, i)).addUnique(id);
+        }
+        for (String token : tokenize(text)) { // Index every word for prefix search
+            IntList postings = tokenPostings.get(token);
+            if (postings == null) {
+                postings = new IntList();
+                tokenPostings.put(token, postings);
+                addWord(token, postings);
+            }
+            postings.addUnique(id);
+        }
+    }
+
+    // Method to remove a task from the index
+    public void remove(T item) {
+        Integer id = ids.remove(item);
+        if (id == null) { // Task was never indexed
+            return;
+        }
+        items.set(id, null); // Stale ids are skipped when queries resolve their results
+        texts.set(id, null);
+        removedCount++;
+        if (removedCount > ids.size() && removedCount > 1024) { // Rebuild once most postings are stale
+            compact();
+        }
+    }
+
+    // Method to get the number of indexed tasks
+    public int size() {
+        return ids.size();
+    }
+
+    // Method to find tasks whose description contains the query
+    public List<T> search(String query) {
+        IntList matches = substringMatches(query.toLowerCase(Locale.ROOT));
+        List<T> results = new ArrayList<>(matches.size);
+        for (int i = 0; i < matches.size; i++) {
+            results.add(items.get(matches.values[i]));
+        }
+        return results;
+    }
+
+    // Method to find up to limit tasks closest to a fuzzy query, best first, ties in the order they were added
+    // Only words the query word starts or that share enough letter pairs with it to be a typo or two away are scored,
+    // and each one's score is spread over its posting list, so a keystroke costs the close words rather than the vocabulary
+    public List<T> searchRanked(FuzzyQuery query, int limit) {
+        if (limit <= 0 || query.getText().isEmpty()) {
+            return new ArrayList<>();
+        }
+        Scratch own = scratch.get();
+        if (own.scores.length < items.size()) {
+            own.scores = new float[items.size()];
+            own.wordScores = new float[items.size()];
+        }
+        if (own.pairCounts.length < vocabulary.size()) {
+            own.pairCounts = new int[vocabulary.size()];
+        }
+        float[] scores = own.scores, wordScores = own.wordScores;
+        IntList scored = new IntList(); // Ids with a score, each once
+        IntList wordScored = new IntList();
+        for (int word = 0; word < query.getWordCount(); word++) {
+            String w = query.getWord(word);
+            for (Map.Entry<String, IntList> entry : tokenPostings.subMap(w, w + Character.MAX_VALUE).entrySet()) { // The word itself and words it starts
+                spreadScore((float) query.scoreWord(word, entry.getKey()), entry.getValue(), wordScores, wordScored);
+            }
+            int maxEdits = FuzzyQuery.maxEdits(w.length());
+            if (maxEdits > 0) {
+                IntList near = nearWords(w, maxEdits, own.pairCounts);
+                for (int i = 0; i < near.size; i++) {
+                    String token = vocabulary.get(near.values[i]);
+                    if (!token.startsWith(w)) { // Already scored above
+                        spreadScore((float) query.scoreWord(word, token), vocabularyPostings.get(near.values[i]), wordScores, wordScored);
+                    }
+                }
+            }
+            for (int i = 0; i < wordScored.size; i++) {
+                int id = wordScored.values[i];
+                if (scores[id] == 0) {
+                    scored.add(id);
+                }
+                scores[id] += wordScores[id];
+                wordScores[id] = 0;
+            }
+            wordScored.size = 0;
+        }
+        IntList matches = substringMatches(query.getText()); // Whole query as typed, also finds it inside longer words
+        for (int i = 0; i < matches.size; i++) {
+            int id = matches.values[i];
+            if (scores[id] == 0) {
+                scored.add(id);
+            }
+            scores[id] += (float) FuzzyQuery.SUBSTRING_BONUS;
+        }
+
+        PriorityQueue<Long> best = new PriorityQueue<>(Math.min(limit, Math.max(1, scored.size))); // Lowest of the best so far on top
+        for (int i = 0; i < scored.size; i++) {
+            int id = scored.values[i];
+            long key = ((long) Float.floatToIntBits(scores[id]) << 32) | (Integer.MAX_VALUE - id); // Positive floats sort like their bits, ties favour lower ids
+            scores[id] = 0;
+            if (best.size() < limit) {
+                best.add(key);
+            } else if (key > best.peek()) {
+                best.poll();
+                best.add(key);
+            }
+        }
+        List<T> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            results.add(items.get(Integer.MAX_VALUE - (int) (best.poll() & 0xFFFFFFFFL)));
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    // Method to give the tasks in a posting list a word's score, unless they already have a better one for the same query word
+    private void spreadScore(float weight, IntList list, float[] wordScores, IntList wordScored) {
+        if (weight == 0) {
+            return;
+        }
+        for (int i = 0; i < list.size; i++) {
+            int id = list.values[i];
+            if (weight > wordScores[id] && items.get(id) != null) { // A task counts its best word only
+                if (wordScores[id] == 0) {
+                    wordScored.add(id);
+                }
+                wordScores[id] = weight;
+            }
+        }
+    }
+
+    // Method to get the numbers of the words that may be within maxEdits typos of a query word
+    // An insertion, deletion, substitution or swap changes at most 3 of a word's padded letter pairs,
+    // so a close word shares all but 3 * maxEdits of the query word's distinct pairs; counts are zeroed again before returning
+    private IntList nearWords(String w, int maxEdits, int[] counts) {
+        long[] pairs = new long[w.length() + 1];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = pairKey(i == 0 ? WORD_START : w.charAt(i - 1), i == w.length() ? WORD_END : w.charAt(i));
+        }
+        Arrays.sort(pairs);
+        int distinct = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                pairs[distinct++] = pairs[i];
+            }
+        }
+        int needed = distinct - 3 * maxEdits;
+        IntList near = new IntList();
+        if (needed <= 0) { // Too few different pairs to rule anything out, as in "aaa", check the lengths only
+            for (int number = 0; number < vocabulary.size(); number++) {
+                if (Math.abs(vocabulary.get(number).length() - w.length()) <= maxEdits) {
+                    near.add(number);
+                }
+            }
+            return near;
+        }
+        IntList touched = new IntList();
+        for (int i = 0; i < distinct; i++) {
+            IntList words = pairWords.get(pairs[i]);
+            if (words == null) {
+                continue;
+            }
+            for (int j = 0; j < words.size; j++) {
+                if (counts[words.values[j]]++ == 0) {
+                    touched.add(words.values[j]);
+                }
+            }
+        }
+        for (int i = 0; i < touched.size; i++) {
+            int number = touched.values[i];
+            if (counts[number] >= needed && Math.abs(vocabulary.get(number).length() - w.length()) <= maxEdits) {
+                near.add(number);
+            }
+            counts[number] = 0;
+        }
+        return near;
+    }
+
+    // Method to give a new word a number and index its padded letter pairs
+    private void addWord(String token, IntList postings) {
+        int number = vocabulary.size();
+        vocabulary.add(token);
+        vocabularyPostings.add(postings);
+        for (int i = 0; i <= token.length(); i++) {
+            pairWords.getOrCreate(pairKey(i == 0 ? WORD_START : token.charAt(i - 1), i == token.length() ? WORD_END : token.charAt(i))).addUnique(number);
+        }
+    }
+
+    // Method to pack a letter pair into a single key
+    private static long pairKey(char first, char second) {
+        return ((long) first << 16) | second;
+    }
+
+    // Method to get the ids of the tasks whose lowercased description contains a lowercased term, in id order
+    private IntList substringMatches(String term) {
+        IntList results = new IntList();
+        if (term.length() < GRAM_LENGTH) { // Too short for trigrams, check the stored lowercase texts
+            for (int id = 0; id < texts.size(); id++) {
+                String text = texts.get(id);
+                if (text != null && text.contains(term)) {
+                    results.addUnique(id);
+                }
+            }
+            return results;
+        }
+
+        IntList[] lists = new IntList[term.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < lists.length; i++) { // Every trigram of the query must appear in a match
+            lists[i] = gramPostings.get(gramKey(term, i));
+            if (lists[i] == null) {
+                return results;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size)); // Intersect starting from the rarest trigram
+
+        int[] candidates = Arrays.copyOf(lists[0].values, lists[0].size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = intersect(candidates, count, lists[i]);
+        }
+
+        for (int i = 0; i < count; i++) { // Trigrams can match out of order, so confirm the substring
+            String text = texts.get(candidates[i]);
+            if (text != null && text.contains(term)) {
+                results.addUnique(candidates[i]);
+            }
+        }
+        return results;
+    }
+
+    // Method to find tasks having a word that starts with the prefix
+    public List<T> searchPrefix(String prefix) {
+        String term = prefix.toLowerCase(Locale.ROOT);
+        BitSet matches = new BitSet(items.size()); // Union of the postings, kept in id order
+        SortedMap<String, IntList> range = term.isEmpty() ? tokenPostings : tokenPostings.subMap(term, term + Character.MAX_VALUE);
+        for (IntList list : range.values()) {
+            for (int i = 0; i < list.size; i++) {
+                matches.set(list.values[i]);
+            }
+        }
+
+        List<T> results = new ArrayList<>();
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            T item = items.get(id);
+            if (item != null) {
+                results.add(item);
+            }
+        }
+        return results;
+    }
+
+    // Method to pack the trigram starting at an offset into a single key
+    private static long gramKey(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    // Method to intersect candidates in place with a sorted posting list
+    private static int intersect(int[] candidates, int count, IntList list) {
+        int kept = 0, j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            while (j < list.size && list.values[j] < candidates[i]) {
+                j++;
+            }
+            if (j < list.size && list.values[j] == candidates[i]) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        return kept;
+    }
+
+    // Method to split lowercased text into word tokens, also used to score fuzzy queries
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Method to rebuild the index without the removed tasks
+    private void compact() {
+        List<T> liveItems = new ArrayList<>();
+        List<String> liveTexts = new ArrayList<>();
+        for (int id = 0; id < items.size(); id++) {
+            if (items.get(id) != null) {
+                liveItems.add(items.get(id));
+                liveTexts.add(texts.get(id));
+            }
+        }
+        gramPostings.clear();
+        tokenPostings.clear();
+        vocabulary.clear();
+        vocabularyPostings.clear();
+        pairWords.clear();
+        items.clear();
+        texts.clear();
+        ids.clear();
+        removedCount = 0;
+        for (int i = 0; i < liveItems.size(); i++) {
+            add(liveItems.get(i), liveTexts.get(i)); // Texts are already lowercase
+        }
+    }
+
+    // Score arrays kept by a thread between its ranked searches and zeroed after each, so searching allocates nothing per task or word
+    private static class Scratch {
+        private float[] scores = new float[0]; // Id -> ranked search score
+        private float[] wordScores = new float[0]; // Id -> best score for the query word being matched
+        private int[] pairCounts = new int[0]; // Word number -> letter pairs shared with the query word
+    }
+
+    // Open addressing map from packed trigram to posting list, avoids a String and boxed key per trigram
+    private static class GramMap {
+        private long[] keys = new long[1024];
+        private IntList[] values = new IntList[1024];
+        private int size;
+
+        // Get the posting list for a trigram, null if no task has it
+        IntList get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        // Get the posting list for a trigram, creating it if needed
+        IntList getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            if (size * 2 >= keys.length) { // Keep the table at most half full
+                grow();
+                return getOrCreate(key);
+            }
+            keys[slot] = key;
+            size++;
+            return values[slot] = new IntList();
+        }
+
+        // Remove every posting list
+        void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+
+        // Double the table and reinsert every entry
+        private void grow() {
+            long[] oldKeys = keys;
+            IntList[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new IntList[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        // Spread the trigram bits before masking
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & mask;
+        }
+    }
+
+    // Growable list of ids, ascending in posting lists
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        // Append an id
+        void add(int id) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = id;
+        }
+
+        // Append an id unless it is already the last entry
+        void addUnique(int id) {
+            if (size > 0 && values[size - 1] == id) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = id;
+        }
+    }
+}
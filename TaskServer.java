@@ -0,0 +1,498 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Local HTTP/JSON API over a task store, run on its own with "java TaskServer [port]" or inside the GUI with -Dsmarttaskmanager.port
+public class TaskServer {
+    public static final int DEFAULT_PORT = 8765;
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2); // Requests mostly wait on the store lock
+
+    private final TaskWorkspaces workspaces; // Stores shared with whatever else uses them, each safe across threads
+    private final Runnable onChange; // Called after requests that change tasks
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private static final int MAX_LISTED = 10_000; // Most occurrences or ranked tasks one request lists
+    private static final int MAX_BODY = 16 * 1024 * 1024; // Largest request body read, so one request cannot fill the heap
+
+    private TaskServer(TaskWorkspaces workspaces, int port, Runnable onChange) throws IOException {
+        this.workspaces = workspaces;
+        this.onChange = onChange;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0); // Only reachable from this machine
+        executor = Executors.newFixedThreadPool(THREADS);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    // Method to start serving the workspaces, onChange runs on a request thread after each change in any of them
+    public static TaskServer start(TaskWorkspaces workspaces, int port, Runnable onChange) throws IOException {
+        TaskServer taskServer = new TaskServer(workspaces, port, onChange);
+        taskServer.server.start();
+        return taskServer;
+    }
+
+    // Method to stop accepting requests and let the request threads finish
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    // Method to get the port the server listens on
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Method to get the port from -Dsmarttaskmanager.port, -1 when the API is not wanted
+    public static int configuredPort() {
+        String port = System.getProperty("smarttaskmanager.port");
+        return port != null ? Integer.parseInt(port) : -1;
+    }
+
+    // Main method to run the API without a window on the saved tasks
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : configuredPort() > 0 ? configuredPort() : DEFAULT_PORT;
+        TaskWorkspaces workspaces = TaskWorkspaces.open(TaskStore.defaultDirectory());
+        workspaces.get(TaskWorkspaces.DEFAULT); // Fail now rather than on the first request if the saved tasks are locked
+        TaskServer taskServer = start(workspaces, port, () -> { });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> { // Ctrl+C writes out the journals
+            taskServer.stop();
+            try {
+                workspaces.close();
+            } catch (IOException ex) {
+                System.err.println("Error: " + ex.getMessage());
+            }
+        }));
+        System.out.println("Serving tasks on http://127.0.0.1:" + taskServer.getPort() + "/");
+    }
+
+    // Method to route a request to the matching endpoint
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!checkOrigin(exchange)) {
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+            TaskWorkspace workspace;
+            if (path[0].equals("workspaces")) { // /workspaces/<name>/... is any endpoint below on that workspace
+                if (path.length == 1) {
+                    if (method.equals("GET")) {
+                        send(exchange, 200, listWorkspaces());
+                    } else {
+                        sendError(exchange, 405, "Use GET.");
+                    }
+                    return;
+                }
+                if (!(method.equals("POST") && addsToWorkspace(Arrays.copyOfRange(path, 2, path.length))) && !workspaces.exists(path[1])) { // Only adding to a workspace creates it
+                    sendError(exchange, 404, "Unknown workspace: " + path[1]);
+                    return;
+                }
+                workspace = workspace(path[1]);
+                path = path.length > 2 ? Arrays.copyOfRange(path, 2, path.length) : new String[]{""};
+            } else {
+                workspace = workspace(TaskWorkspaces.DEFAULT);
+            }
+            TaskStore tasks = workspace.getTasks();
+            TaskRecurrences recurrences = workspace.getRecurrences();
+            String resource = path[0];
+            if (resource.equals("tasks") && path.length == 1) {
+                if (method.equals("GET")) {
+                    send(exchange, 200, queryTasks(tasks, params.getOrDefault("q", "")));
+                } else if (method.equals("POST")) {
+                    send(exchange, 201, addTask(tasks, readBody(exchange)));
+                } else {
+                    sendError(exchange, 405, "Use GET or POST.");
+                }
+            } else if (resource.equals("tasks") && path.length == 2) {
+                long id = parseId(path[1]);
+                if (method.equals("GET")) {
+                    sendTask(exchange, tasks.getById(id), 200);
+                } else if (method.equals("DELETE")) {
+                    Task removed = tasks.removeById(id);
+                    changed(removed != null);
+                    sendTask(exchange, removed, 200);
+                } else {
+                    sendError(exchange, 405, "Use GET or DELETE.");
+                }
+            } else if (resource.equals("tasks") && path.length == 3 && path[2].equals("complete")) {
+                if (!method.equals("POST")) {
+                    sendError(exchange, 405, "Use POST.");
+                    return;
+                }
+                Task completed = tasks.markCompletedById(parseId(path[1]));
+                changed(completed != null);
+                sendTask(exchange, completed, 200);
+            } else if (resource.equals("search") && path.length == 1 && method.equals("GET")) {
+                send(exchange, 200, search(tasks, params.getOrDefault("q", ""), params));
+            } else if (resource.equals("summary") && path.length == 1 && method.equals("GET")) {
+                send(exchange, 200, Boolean.parseBoolean(params.get("all")) ? summaryJson(workspaces.summarize(false, 5)) : summaryJson(workspace.summarize(false, 5)));
+            } else if (resource.equals("recurring") && path.length == 1) {
+                if (method.equals("GET")) {
+                    send(exchange, 200, listRecurring(recurrences));
+                } else if (method.equals("POST")) {
+                    send(exchange, 201, addRecurring(recurrences, readBody(exchange)));
+                } else {
+                    sendError(exchange, 405, "Use GET or POST.");
+                }
+            } else if (resource.equals("recurring") && (path.length == 2 || path.length == 3 && path[2].equals("complete"))) {
+                if (!method.equals(path.length == 2 ? "DELETE" : "POST")) {
+                    sendError(exchange, 405, path.length == 2 ? "Use DELETE." : "Use POST.");
+                    return;
+                }
+                int id = (int) Math.min(Integer.MAX_VALUE, parseId(path[1]));
+                RecurringTask rule = path.length == 2 ? recurrences.remove(id) : recurrences.completeNext(id);
+                if (rule == null) {
+                    sendError(exchange, 404, "Recurring task not found.");
+                    return;
+                }
+                StringBuilder json = new StringBuilder();
+                appendRecurring(json, rule);
+                send(exchange, 200, json.toString());
+            } else if (resource.equals("occurrences") && path.length == 1 && method.equals("GET")) {
+                send(exchange, 200, occurrences(recurrences, params));
+            } else if (resource.equals("batch") && path.length == 1 && method.equals("POST")) {
+                send(exchange, 200, batch(tasks, readBody(exchange)));
+            } else {
+                sendError(exchange, 404, "Unknown endpoint: " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (BodyTooLargeException ex) {
+            sendError(exchange, 413, ex.getMessage());
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            sendError(exchange, 400, ex.getMessage());
+        } catch (RuntimeException ex) {
+            sendError(exchange, 500, String.valueOf(ex.getMessage()));
+        } catch (IOException ex) { // A workspace could not be opened, or the client went away and this fails too
+            sendError(exchange, 500, String.valueOf(ex.getMessage()));
+        }
+    }
+
+    // Method to turn away requests a web page in the user's browser could have made: a Host other than this server means DNS rebinding,
+    // a foreign Origin a cross-site request, and POSTs must be JSON because browsers send forms and text/plain without asking first
+    private boolean checkOrigin(HttpExchange exchange) throws IOException {
+        int port = getPort();
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null || !isLocal(host, port)) {
+            sendError(exchange, 403, "Use http://localhost:" + port + "/ or http://127.0.0.1:" + port + "/.");
+            return false;
+        }
+        String origin = exchange.getRequestHeaders().getFirst("Origin"); // Sent by browsers, not by curl or scripts
+        if (origin != null && !(origin.toLowerCase(Locale.ROOT).startsWith("http://") && isLocal(origin.substring("http://".length()), port))) {
+            sendError(exchange, 403, "Requests from other sites are not allowed.");
+            return false;
+        }
+        if (exchange.getRequestMethod().equals("POST")) {
+            String type = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (type == null || !type.split(";", 2)[0].trim().equalsIgnoreCase("application/json")) {
+                sendError(exchange, 415, "Use Content-Type: application/json.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocal(String host, int port) {
+        String lower = host.toLowerCase(Locale.ROOT);
+        return lower.equals("localhost:" + port) || lower.equals("127.0.0.1:" + port);
+    }
+
+    // GET /tasks?q=priority:high status:pending, a page of tasks matching a query
+    private String queryTasks(TaskStore tasks, String query) {
+        TaskQuery.Result result = tasks.query(TaskQuery.parse(query));
+        StringBuilder json = new StringBuilder();
+        json.append("{\"total\":").append(result.getTotal())
+                .append(",\"page\":").append(result.getPage())
+                .append(",\"pageCount\":").append(result.getPageCount())
+                .append(",\"tasks\":");
+        appendTasks(json, result.getTasks());
+        return json.append('}').toString();
+    }
+
+    // POST /tasks with a task object, returns the new task's id
+    private String addTask(TaskStore tasks, String body) {
+        long id = tasks.add(TaskJson.toTask(TaskJson.parseObject(body)));
+        changed(true);
+        return "{\"id\":" + id + "}";
+    }
+
+    // GET /search?q=term&offset=m&limit=n, n tasks from the m-th whose description contains the term, a trailing * matches word prefixes
+    // GET /search?q=term&fuzzy=true&limit=n, the n tasks closest to the term allowing typos, best first
+    // GET /search?q=term&fuzzy=true&all=true, the same over every workspace, each task with its workspace
+    private String search(TaskStore tasks, String term, Map<String, String> params) throws IOException {
+        if (term.replace("*", "").isBlank()) { // Would list every task
+            throw new IllegalArgumentException("Expected a search term in q.");
+        }
+        if (Boolean.parseBoolean(params.get("fuzzy"))) {
+            int limit = (int) Math.min(MAX_LISTED, parseId(params.getOrDefault("limit", "20")));
+            if (Boolean.parseBoolean(params.get("all"))) {
+                return searchAll(term, limit);
+            }
+            StringBuilder json = new StringBuilder("{\"tasks\":");
+            appendTasks(json, tasks.searchRanked(term, limit));
+            return json.append('}').toString();
+        }
+        List<Task> matches = term.endsWith("*") ? tasks.searchPrefix(term.substring(0, term.length() - 1)) : tasks.search(term);
+        int offset = (int) Math.min(matches.size(), Math.max(0, parseId(params.getOrDefault("offset", "0"))));
+        int limit = (int) Math.min(MAX_LISTED, Math.max(0, parseId(params.getOrDefault("limit", "1000"))));
+        StringBuilder json = new StringBuilder("{\"total\":").append(matches.size())
+                .append(",\"offset\":").append(offset)
+                .append(",\"tasks\":");
+        appendTasks(json, matches.subList(offset, (int) Math.min(matches.size(), (long) offset + limit))); // Only the page is turned into JSON
+        return json.append('}').toString();
+    }
+
+    private String searchAll(String term, int limit) throws IOException {
+        StringBuilder json = new StringBuilder("{\"tasks\":[");
+        List<TaskWorkspaces.Match> matches = workspaces.searchRanked(term, limit);
+        for (int i = 0; i < matches.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            StringBuilder task = new StringBuilder();
+            TaskJson.appendTask(task, matches.get(i).getTask(), true);
+            json.append("{\"workspace\":\"").append(matches.get(i).getWorkspace()).append("\",").append(task, 1, task.length()); // Workspace first, then the task's fields
+        }
+        return json.append("]}").toString();
+    }
+
+    // GET /workspaces, each workspace's counts, read in parallel, and their sum
+    private String listWorkspaces() throws IOException {
+        Map<String, TaskSummary> summaries = workspaces.summarizeEach(false, 0);
+        StringBuilder json = new StringBuilder("{\"workspaces\":[");
+        boolean first = true;
+        for (Map.Entry<String, TaskSummary> entry : summaries.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            String counts = summaryJson(entry.getValue());
+            json.append("{\"name\":\"").append(entry.getKey()).append("\",").append(counts, 1, counts.length());
+        }
+        return json.append("],\"all\":").append(summaryJson(TaskSummary.merge(new ArrayList<>(summaries.values()), 0))).append('}').toString();
+    }
+
+    // GET /recurring, every repeat rule with its next open occurrence
+    private String listRecurring(TaskRecurrences recurrences) {
+        StringBuilder json = new StringBuilder("{\"recurring\":[");
+        List<RecurringTask> rules = recurrences.getAll();
+        for (int i = 0; i < rules.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendRecurring(json, rules.get(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    // POST /recurring with description, priority, deadline of the first occurrence and repeat, returns the rule's id
+    private String addRecurring(TaskRecurrences recurrences, String body) {
+        Map<String, String> fields = TaskJson.parseObject(body);
+        String description = fields.get("description"), priority = fields.get("priority"), deadline = fields.get("deadline"), repeat = fields.get("repeat");
+        if (description == null || priority == null || deadline == null || repeat == null) {
+            throw new IllegalArgumentException("Expected description, priority, deadline and repeat.");
+        }
+        RecurringTask rule = recurrences.add(description, Task.Priority.parse(priority), Recurrence.parse(repeat), Task.parseDeadline(deadline));
+        changed(true);
+        return "{\"id\":" + rule.getId() + "}";
+    }
+
+    // GET /occurrences?from=DD-MM-YYYY&to=DD-MM-YYYY&limit=n, open occurrences in the range, expanded only up to the limit
+    private String occurrences(TaskRecurrences recurrences, Map<String, String> params) {
+        String from = params.get("from"), to = params.get("to");
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Expected from and to.");
+        }
+        int limit = (int) Math.min(MAX_LISTED, parseId(params.getOrDefault("limit", "1000")));
+        StringBuilder json = new StringBuilder("{\"tasks\":");
+        appendTasks(json, recurrences.occurrences(Task.parseDeadline(from), Task.parseDeadline(to), limit));
+        return json.append('}').toString();
+    }
+
+    // GET /summary, the counts and the next five tasks due; with all=true over every workspace
+    private static String summaryJson(TaskSummary summary) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"total\":").append(summary.getTotal())
+                .append(",\"high\":").append(summary.getPriorityCount(Task.Priority.HIGH))
+                .append(",\"medium\":").append(summary.getPriorityCount(Task.Priority.MEDIUM))
+                .append(",\"low\":").append(summary.getPriorityCount(Task.Priority.LOW))
+                .append(",\"completed\":").append(summary.getCompletedCount())
+                .append(",\"overdue\":").append(summary.getOverdueCount())
+                .append(",\"recurring\":").append(summary.getRecurringCount())
+                .append(",\"recurringOverdue\":").append(summary.getRecurringOverdueCount())
+                .append(",\"upcoming\":");
+        appendTasks(json, summary.getUpcoming());
+        return json.append('}').toString();
+    }
+
+    // POST /batch with one operation per line, run as one store batch, returns one result per operation in order
+    // {"op":"add","description":...,"priority":...,"deadline":...} {"op":"remove","id":3} {"op":"complete","id":3}
+    private String batch(TaskStore tasks, String body) {
+        StringBuilder json = new StringBuilder("[");
+        boolean changes = false;
+        tasks.beginBatch();
+        try {
+            for (String line : body.split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                try {
+                    Map<String, String> fields = TaskJson.parseObject(line);
+                    String op = fields.getOrDefault("op", "");
+                    if (op.equals("add")) {
+                        json.append("{\"id\":").append(tasks.add(TaskJson.toTask(fields))).append('}');
+                        changes = true;
+                    } else if (op.equals("remove") || op.equals("complete")) {
+                        long id = parseId(fields.getOrDefault("id", ""));
+                        Task task = op.equals("remove") ? tasks.removeById(id) : tasks.markCompletedById(id);
+                        changes |= task != null;
+                        json.append(task != null ? "{\"ok\":true}" : "{\"error\":\"Task not found.\"}");
+                    } else {
+                        throw new IllegalArgumentException("Unknown op: " + op + ". Use add, remove or complete.");
+                    }
+                } catch (IllegalArgumentException ex) {
+                    json.append("{\"error\":");
+                    TaskJson.appendString(json, ex.getMessage());
+                    json.append('}');
+                }
+            }
+        } finally {
+            tasks.endBatch();
+        }
+        changed(changes);
+        return json.append(']').toString();
+    }
+
+    // Method to get a workspace for a request, failing with 500 if its saved tasks cannot be opened
+    private TaskWorkspace workspace(String name) {
+        try {
+            return workspaces.get(name);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Method to tell the owner about a change
+    private void changed(boolean changed) {
+        if (changed) {
+            onChange.run();
+        }
+    }
+
+    private static void appendTasks(StringBuilder json, List<Task> list) {
+        json.append('[');
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            TaskJson.appendTask(json, list.get(i), list.get(i).getId() >= 0); // Occurrences of recurring tasks are in no store
+        }
+        json.append(']');
+    }
+
+    private static void appendRecurring(StringBuilder json, RecurringTask rule) {
+        long next = rule.getNextDay();
+        json.append("{\"id\":").append(rule.getId()).append(",\"description\":");
+        TaskJson.appendString(json, rule.getDescription());
+        json.append(",\"priority\":\"").append(rule.getPriority())
+                .append("\",\"repeat\":");
+        TaskJson.appendString(json, rule.getRecurrence().toString());
+        json.append(",\"start\":\"").append(Task.formatDeadline(rule.getStartDay()))
+                .append("\",\"done\":").append(rule.getDone())
+                .append(",\"next\":");
+        if (next <= Integer.MAX_VALUE) {
+            json.append('"').append(Task.formatDeadline((int) next)).append('"');
+        } else {
+            json.append("null");
+        }
+        json.append('}');
+    }
+
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid task id: " + text);
+        }
+    }
+
+    // Method to split a raw query string into decoded parameters
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            params.put(key, equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    // Method to check if a POST to a path below /workspaces/<name>/ adds tasks or rules, the only requests that create the workspace
+    private static boolean addsToWorkspace(String[] path) {
+        return path.length == 1 && (path[0].equals("tasks") || path[0].equals("recurring") || path[0].equals("batch"));
+    }
+
+    // Method to read a request body of at most MAX_BODY bytes
+    private static String readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY + 1); // One byte more tells a body that is too large
+        if (body.length > MAX_BODY) {
+            throw new BodyTooLargeException();
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    // Request body over MAX_BODY, answered with 413
+    private static class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException() {
+            super("Request body is larger than " + MAX_BODY / (1024 * 1024) + " MB.");
+        }
+    }
+
+    private static void sendTask(HttpExchange exchange, Task task, int status) throws IOException {
+        if (task == null) {
+            sendError(exchange, 404, "Task not found.");
+            return;
+        }
+        StringBuilder json = new StringBuilder();
+        TaskJson.appendTask(json, task, true);
+        send(exchange, status, json.toString());
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        TaskJson.appendString(json, message);
+        send(exchange, status, json.append('}').toString());
+    }
+
+    // Method to send a JSON response with its length so the connection can be kept alive for the next request
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.List;
+
+// Summary counters kept up to date as tasks change, so summaries never rescan the task list
+public class TaskStatistics {
+    private final TaskScheduler scheduler; // Tracks which tasks are overdue
+    private final int[] priorityCounts = new int[Task.Priority.values().length]; // Priority ordinal -> number of tasks
+    private int taskCount; // Number of tasks
+    private int completedCount; // Number of completed tasks
+
+    // Constructor taking the scheduler that tracks deadlines
+    public TaskStatistics(TaskScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    // Method to count a newly added task
+    public void add(Task task) {
+        taskCount++;
+        priorityCounts[task.getPriority().ordinal()]++;
+        if (task.isCompleted()) {
+            completedCount++;
+        }
+    }
+
+    // Method to stop counting a removed task
+    public void remove(Task task) {
+        taskCount--;
+        priorityCounts[task.getPriority().ordinal()]--;
+        if (task.isCompleted()) {
+            completedCount--;
+        }
+    }
+
+    // Method to count a task that has just been completed
+    public void markCompleted(Task task) {
+        completedCount++;
+    }
+
+    // Method to stop counting a task that is pending again
+    public void markPending(Task task) {
+        completedCount--;
+    }
+
+    // Method to get the number of tasks
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    // Method to get the number of tasks with a priority
+    public int getPriorityCount(Task.Priority priority) {
+        return priorityCounts[priority.ordinal()];
+    }
+
+    // Method to get the number of completed tasks
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    // Method to get the number of overdue tasks
+    public int getOverdueCount() {
+        return scheduler.getOverdueCount();
+    }
+
+    // Method to get the overdue tasks in the order they fell due
+    public List<Task> getOverdueTasks() {
+        return scheduler.getOverdueTasks();
+    }
+}
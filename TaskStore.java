@@ -0,0 +1,113 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Tasks as seen by the GUI and CLI, whichever way they are stored
+public interface TaskStore extends Closeable {
+    // Method to get the directory tasks are saved in, set with -Dsmarttaskmanager.dir
+    static Path defaultDirectory() {
+        String directory = System.getProperty("smarttaskmanager.dir");
+        return directory != null ? Paths.get(directory) : Paths.get(System.getProperty("user.home"), ".smarttaskmanager");
+    }
+
+    // Method to open the saved tasks, -Dsmarttaskmanager.store=columnar selects the memory-mapped column files
+    static TaskStore open(Path directory) throws IOException {
+        if ("columnar".equals(System.getProperty("smarttaskmanager.store"))) {
+            return ColumnarTaskStore.open(directory.resolve("columns"));
+        }
+        return TaskList.open(directory);
+    }
+
+    // Method to open the saved tasks the way every front end uses them: shared between threads and timed when metrics are on
+    static TaskStore openShared() throws IOException {
+        return share(open(defaultDirectory()));
+    }
+
+    // Method to wrap a store for a front end, also used for the unsaved list when the saved tasks cannot be opened
+    // Searches are cached inside the lock, so cache hits are timed like any other search
+    static TaskStore share(TaskStore store) {
+        return TaskMetrics.wrap(new ConcurrentTaskStore(new CachingTaskStore(store)));
+    }
+
+    // Method to add a task, returns its id, which stays the same while the store is open however other tasks move
+    long add(Task task);
+
+    // Method to remove the task at an index
+    Task remove(int index);
+
+    // Method to remove a task by id, null if it is already gone
+    Task removeById(long id);
+
+    // Method to mark the task at an index as completed
+    Task markCompleted(int index);
+
+    // Method to mark a task as completed by id, null if it is gone
+    Task markCompletedById(long id);
+
+    // Method to mark a completed task as pending again by id, null if it is gone
+    Task markPendingById(long id);
+
+    // Method to put a removed task back at an index, into the gap it left when there is one, returns its id
+    long restore(int index, Task task);
+
+    // Method to get the task at an index
+    Task get(int index);
+
+    // Method to get a task by id, null if it is gone
+    Task getById(long id);
+
+    // Method to get the id of the task at an index
+    long getId(int index);
+
+    // Method to get the current index of a task by id, -1 if it is gone
+    int indexOf(long id);
+
+    // Method to get the number of tasks
+    int size();
+
+    // Method to find tasks whose description contains the query, ignoring case
+    List<Task> search(String query);
+
+    // Method to find tasks having a word that starts with the prefix, ignoring case
+    List<Task> searchPrefix(String prefix);
+
+    // Method to find up to limit tasks whose description is closest to the query, best first, allowing typos, see FuzzyQuery
+    List<Task> searchRanked(String query, int limit);
+
+    // Method to get one page of the tasks matching a query's filters, in its sort order
+    TaskQuery.Result query(TaskQuery query);
+
+    // Method to get the number of tasks with a priority
+    int getPriorityCount(Task.Priority priority);
+
+    // Method to get the number of completed tasks
+    int getCompletedCount();
+
+    // Method to get the number of overdue tasks
+    int getOverdueCount();
+
+    // Method to get the overdue tasks
+    List<Task> getOverdueTasks();
+
+    // Method to get the next pending tasks to fall due, earliest deadline first
+    List<Task> getUpcoming(int limit);
+
+    // Method to start a batch of changes, they may be saved together when the batch ends instead of one by one
+    void beginBatch();
+
+    // Method to end a batch of changes and save any that are still pending
+    void endBatch();
+
+    // Method to be notified when a task becomes overdue
+    void addOverdueListener(Consumer<Task> listener);
+
+    // Method to check for tasks whose deadline has passed and notify the listeners
+    void poll();
+
+    // Method to save any pending changes and release the saved tasks
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,265 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Benchmark of the task store operations behind both front ends: add, remove, mark completed, summary and search
+// Usage: java TaskStoreBenchmark [--stores memory,journal,columnar] [--sizes 1000,100000] [--full] [--millis 500]
+//                                [--save results.tsv] [--baseline results.tsv] [--tolerance 20]
+// --full adds 10,000,000 tasks to the sizes; --baseline fails the run when an operation got slower than the saved one by more than the tolerance
+public class TaskStoreBenchmark {
+    private static final int WARMUP_ROUNDS = 3; // Rounds run before measuring so the JIT has compiled the paths
+    private static final int MEASURED_ROUNDS = 5; // Rounds averaged into the result
+    private static final int[] DEFAULT_SIZES = {1_000, 100_000};
+    private static final int[] FULL_SIZES = {1_000, 100_000, 10_000_000};
+    private static final String[] WORDS = {"report", "email", "meeting", "invoice", "review", "deploy", "groceries", "dentist",
+            "budget", "backup", "release", "call", "plan", "design", "laundry", "taxes"}; // Words the descriptions are made of
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Random random = new Random(42); // Fixed seed so runs are comparable
+    private final int today = (int) LocalDate.now().toEpochDay();
+    private final long roundNanos; // Time each round runs for
+    private long sink; // Results are folded in here so the JIT cannot drop the work
+    private final Map<String, Double> results = new LinkedHashMap<>(); // "store tasks operation" -> ns/op, in the order measured
+
+    // An operation being measured, returns something derived from its result
+    private interface Operation {
+        long run(TaskStore store);
+    }
+
+    // Puts a store back to its starting size after an operation that grows or shrinks it
+    private interface Restore {
+        void restore(TaskStore store, int size);
+    }
+
+    private TaskStoreBenchmark(long roundMillis) {
+        this.roundNanos = roundMillis * 1_000_000;
+    }
+
+    // Main method, runs every operation for every store and size and prints one row per operation
+    public static void main(String[] args) throws IOException {
+        String[] stores = {"memory", "journal", "columnar"};
+        int[] sizes = DEFAULT_SIZES;
+        long millis = 500;
+        Path save = null, baseline = null;
+        double tolerance = 20; // Percent slower than the baseline still accepted
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--stores":
+                    stores = value(args, ++i).split(",");
+                    break;
+                case "--sizes":
+                    sizes = Stream.of(value(args, ++i).split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--full":
+                    sizes = FULL_SIZES;
+                    break;
+                case "--millis":
+                    millis = Long.parseLong(value(args, ++i));
+                    break;
+                case "--save":
+                    save = Path.of(value(args, ++i));
+                    break;
+                case "--baseline":
+                    baseline = Path.of(value(args, ++i));
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(value(args, ++i));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Map<String, Double> expected = baseline != null ? readResults(baseline) : null; // Read first, the same file may be saved over
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("Allocation counting is not supported by this JVM, B/op will read 0.");
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        TaskStoreBenchmark benchmark = new TaskStoreBenchmark(millis);
+        System.out.printf("%-9s %10s %-15s %14s %12s%n", "Store", "Tasks", "Operation", "ns/op", "B/op");
+        for (String store : stores) {
+            for (int size : sizes) {
+                benchmark.run(store, size);
+            }
+        }
+        if (benchmark.sink == 42) {
+            System.out.println(); // Never true in practice, keeps the sink alive
+        }
+        if (save != null) {
+            writeResults(save, benchmark.results);
+        }
+        if (expected != null && benchmark.regressions(expected, tolerance) > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Method to get the value after an option
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    // Method to compare the results with a baseline, printing and counting every operation slower by more than the tolerance
+    // Operations missing from the baseline are new and pass
+    private int regressions(Map<String, Double> expected, double tolerance) {
+        int count = 0;
+        for (Map.Entry<String, Double> result : results.entrySet()) {
+            Double before = expected.get(result.getKey());
+            if (before != null && result.getValue() > before * (1 + tolerance / 100)) {
+                System.out.printf("Regression: %s %.1f ns/op, baseline %.1f ns/op (+%.0f%%)%n", result.getKey(), result.getValue(), before,
+                        (result.getValue() / before - 1) * 100);
+                count++;
+            }
+        }
+        System.out.printf("%d of %d operations slower than the baseline by more than %.0f%%.%n", count, results.size(), tolerance);
+        return count;
+    }
+
+    // Method to save results as tab separated store, tasks, operation and ns/op, one operation per line
+    private static void writeResults(Path file, Map<String, Double> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# store\ttasks\toperation\tns/op");
+        for (Map.Entry<String, Double> result : results.entrySet()) {
+            lines.add(result.getKey().replace(' ', '\t') + "\t" + String.format(Locale.ROOT, "%.1f", result.getValue()));
+        }
+        Files.write(file, lines);
+    }
+
+    // Method to read results saved by writeResults
+    private static Map<String, Double> readResults(Path file) throws IOException {
+        Map<String, Double> results = new LinkedHashMap<>();
+        int line = 0;
+        for (String text : Files.readAllLines(file)) {
+            line++;
+            if (text.isBlank() || text.startsWith("#")) {
+                continue;
+            }
+            String[] fields = text.split("\t");
+            if (fields.length != 4) {
+                throw new IOException("Invalid result on line " + line + " of " + file);
+            }
+            try {
+                results.put(fields[0] + " " + fields[1] + " " + fields[2], Double.parseDouble(fields[3]));
+            } catch (NumberFormatException ex) {
+                throw new IOException("Invalid result on line " + line + " of " + file, ex);
+            }
+        }
+        return results;
+    }
+
+    // Method to fill one store and measure every operation on it
+    private void run(String kind, int size) throws IOException {
+        Path directory = Files.createTempDirectory("task-benchmark");
+        try (TaskStore store = open(kind, directory)) {
+            for (int i = 0; i < size; i++) {
+                store.add(newTask(i));
+            }
+
+            measure(kind, size, "add", store, s -> s.add(newTask(random.nextInt())), this::trimTo);
+            measure(kind, size, "remove(index)", store, s -> s.remove(random.nextInt(s.size())).getDeadlineDay(), this::refillTo);
+            measure(kind, size, "markCompleted", store, s -> s.markCompleted(random.nextInt(s.size())).getDeadlineDay(), null);
+            measure(kind, size, "summary", store, this::summary, null);
+            measure(kind, size, "search", store, s -> s.search(Integer.toString(random.nextInt(size))).size(), null);
+            measure(kind, size, "searchPrefix", store, s -> s.searchPrefix(WORDS[random.nextInt(WORDS.length)].substring(0, 3)).size(), null);
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    // Method to open an empty store of a kind in a directory
+    private static TaskStore open(String kind, Path directory) throws IOException {
+        switch (kind) {
+            case "memory":
+                return new TaskList(); // Heap store without a journal
+            case "journal":
+                return TaskList.open(directory);
+            case "columnar":
+                return ColumnarTaskStore.open(directory);
+            default:
+                throw new IllegalArgumentException("Unknown store: " + kind);
+        }
+    }
+
+    // Method to run an operation for the warmup and measured rounds and print its cost
+    private void measure(String kind, int size, String name, TaskStore store, Operation operation, Restore restore) {
+        long totalOps = 0, totalNanos = 0, totalBytes = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long ops = 0;
+            long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sink += operation.run(store);
+                ops++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < roundNanos && (restore == null || ops < size / 2 + 1)); // Changes stay within half the tasks
+            long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+            if (restore != null) {
+                restore.restore(store, size); // Back to the starting size, not measured
+            }
+            if (round >= WARMUP_ROUNDS) {
+                totalOps += ops;
+                totalNanos += elapsed;
+                totalBytes += bytes;
+            }
+        }
+        System.out.printf("%-9s %10d %-15s %14.1f %12.1f%n", kind, size, name, (double) totalNanos / totalOps, (double) totalBytes / totalOps);
+        results.put(kind + " " + size + " " + name, (double) totalNanos / totalOps);
+    }
+
+    // Method to remove the tasks added past a size
+    private void trimTo(TaskStore store, int size) {
+        while (store.size() > size) {
+            store.remove(store.size() - 1);
+        }
+    }
+
+    // Method to add tasks until a store is back to a size
+    private void refillTo(TaskStore store, int size) {
+        while (store.size() < size) {
+            store.add(newTask(random.nextInt()));
+        }
+    }
+
+    // Method to do what the summary does: the counts, the overdue tasks and the next tasks due
+    private long summary(TaskStore store) {
+        long result = store.getCompletedCount();
+        for (Task.Priority priority : Task.Priority.values()) {
+            result += store.getPriorityCount(priority);
+        }
+        result += store.getOverdueTasks().size();
+        result += store.getUpcoming(5).size();
+        return result;
+    }
+
+    // Method to make a task with a numbered description and a deadline within a year either side of today
+    private Task newTask(int number) {
+        String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + number;
+        Task.Priority priority = Task.Priority.values()[random.nextInt(3)];
+        return new Task(description, priority, today - 365 + random.nextInt(730));
+    }
+
+    // Method to delete the files a store left behind
+    private static void deleteRecursively(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(paths::add); // Children before their directory
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Checks of store behaviour that broke before: undo putting tasks back after other changes, reopening afterwards,
+// and text search ignoring case beyond ASCII in every store kind
+// Usage: java TaskStoreCheck, prints every failed check and exits with status 1 if there was any
+public class TaskStoreCheck {
+    private static final int SNAPSHOT_FILLER = 100_000; // Journal records that make the heap store write a snapshot
+
+    private int failures; // Checks failed so far
+
+    // Main method, runs every check against every store kind
+    public static void main(String[] args) throws IOException {
+        TaskStoreCheck check = new TaskStoreCheck();
+        for (String kind : new String[]{"memory", "journal", "columnar"}) {
+            check.restoreAfterOtherRemove(kind);
+            check.restoreManyAfterOtherRemoves(kind);
+            check.searchIgnoresCase(kind);
+        }
+        check.restoreAfterSnapshot();
+        check.failedRestoreChangesNothing();
+        System.out.println(check.failures == 0 ? "All checks passed." : check.failures + " checks failed.");
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+    // Method to undo a removal after another task before it was removed outside the history, then reopen
+    private void restoreAfterOtherRemove(String kind) throws IOException {
+        Path directory = Files.createTempDirectory("task-check");
+        try {
+            List<String> expected;
+            try (TaskStore store = open(kind, directory)) {
+                for (int i = 0; i < 10; i++) {
+                    store.add(new Task("task " + i, i % 2 == 0 ? Task.Priority.HIGH : Task.Priority.LOW, 20_000 + i));
+                }
+                TaskHistory history = new TaskHistory(store);
+                history.remove(new long[]{store.getId(5)});
+                store.removeById(store.getId(2)); // Removed by another window or the HTTP API
+                check(history.undo(), kind + ": undo after another removal");
+                check(store.size() == 9, kind + ": size after undo is " + store.size());
+                checkCounts(store, kind + ": after undo");
+                check(store.search("task 5").size() == 1, kind + ": restored task is found by search");
+                expected = descriptions(store);
+            }
+            if (!kind.equals("memory")) {
+                try (TaskStore store = open(kind, directory)) {
+                    check(descriptions(store).equals(expected), kind + ": tasks after reopening are " + descriptions(store));
+                    checkCounts(store, kind + ": after reopening");
+                }
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    // Method to undo removing several tasks after tasks between and around them were removed outside the history, then redo
+    private void restoreManyAfterOtherRemoves(String kind) throws IOException {
+        Path directory = Files.createTempDirectory("task-check");
+        try {
+            List<String> expected;
+            try (TaskStore store = open(kind, directory)) {
+                for (int i = 0; i < 10; i++) {
+                    store.add(new Task("task " + i, Task.Priority.values()[i % 3], 20_000 + i));
+                }
+                TaskHistory history = new TaskHistory(store);
+                history.remove(new long[]{store.getId(3), store.getId(5), store.getId(7)});
+                store.removeById(store.getId(1)); // task 2
+                store.removeById(store.getId(3)); // task 6
+                check(history.undo(), kind + ": undo after other removals");
+                check(store.size() == 8, kind + ": size after undo is " + store.size());
+                for (String description : new String[]{"task 3", "task 5", "task 7"}) {
+                    check(descriptions(store).contains(description), kind + ": " + description + " is back after undo");
+                }
+                checkCounts(store, kind + ": after undoing several removals");
+                check(history.redo(), kind + ": redo after other removals");
+                check(store.size() == 5, kind + ": size after redo is " + store.size());
+                checkCounts(store, kind + ": after redo");
+                check(history.undo(), kind + ": second undo");
+                expected = descriptions(store);
+            }
+            if (!kind.equals("memory")) {
+                try (TaskStore store = open(kind, directory)) {
+                    check(descriptions(store).equals(expected), kind + ": tasks after reopening are " + descriptions(store));
+                }
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    // Method to check that an undo the store fails part way leaves the store and the undo step as they were
+    private void failedRestoreChangesNothing() {
+        int[] restores = {0};
+        TaskList store = new TaskList() {
+            @Override
+            public long restore(int index, Task task) {
+                if (++restores[0] == 2) {
+                    throw new IllegalStateException("No space left.");
+                }
+                return super.restore(index, task);
+            }
+        };
+        for (int i = 0; i < 10; i++) {
+            store.add(new Task("task " + i, Task.Priority.MEDIUM, 20_000 + i));
+        }
+        TaskHistory history = new TaskHistory(store);
+        history.remove(new long[]{store.getId(2), store.getId(4), store.getId(6)});
+        List<String> before = descriptions(store);
+        try {
+            history.undo();
+            check(false, "failed undo throws");
+        } catch (IllegalStateException ex) {
+            check(descriptions(store).equals(before), "failed undo leaves the tasks as they were: " + descriptions(store));
+            checkCounts(store, "after a failed undo");
+            check(history.getUndoName() != null, "failed undo keeps the step to undo");
+        }
+        check(history.undo() && store.size() == 10, "undo works once the store accepts the tasks");
+    }
+
+    // Method to undo a removal after a snapshot closed its gap, so reopening replays the restore over the snapshot
+    private void restoreAfterSnapshot() throws IOException {
+        Path directory = Files.createTempDirectory("task-check");
+        try {
+            List<String> expected;
+            try (TaskList store = TaskList.open(directory)) {
+                for (int i = 0; i < 10; i++) {
+                    store.add(new Task("task " + i, Task.Priority.MEDIUM, 20_000 + i));
+                }
+                TaskHistory history = new TaskHistory(store);
+                history.remove(new long[]{store.getId(5)});
+                store.beginBatch();
+                for (int i = 0; i < SNAPSHOT_FILLER; i++) {
+                    store.add(new Task("filler " + i, Task.Priority.LOW, 20_000));
+                }
+                store.endBatch();
+                check(history.undo(), "journal: undo after a snapshot");
+                store.add(new Task("added after undo", Task.Priority.HIGH, 20_000));
+                expected = descriptions(store);
+            }
+            try (TaskList store = TaskList.open(directory)) {
+                check(descriptions(store).equals(expected), "journal: tasks after replaying a restore over a snapshot");
+                check(store.search("added after undo").size() == 1, "journal: task added after the undo survives reopening");
+                checkCounts(store, "journal: after replaying a restore over a snapshot");
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    // Method to search descriptions with letters outside ASCII in the other case
+    private void searchIgnoresCase(String kind) throws IOException {
+        Path directory = Files.createTempDirectory("task-check");
+        try (TaskStore store = open(kind, directory)) {
+            store.add(new Task("\u03A9mega report", Task.Priority.HIGH, 20_000));
+            store.add(new Task("\u00C4rger mit dem Vermieter", Task.Priority.LOW, 20_000));
+            store.add(new Task("plain ascii task", Task.Priority.LOW, 20_000));
+            check(store.search("\u03A9MEGA").size() == 1, kind + ": search ignores the case of Greek letters");
+            check(store.search("\u00E4RGER").size() == 1, kind + ": search ignores the case of umlauts");
+            check(store.searchPrefix("\u00E4RG").size() == 1, kind + ": prefix search ignores the case of umlauts");
+            check(store.searchPrefix("MEGA").isEmpty(), kind + ": prefix search only matches word starts");
+            check(store.query(TaskQuery.parse("\u03C9mega")).getTotal() == 1, kind + ": query text ignores case");
+            check(store.search("ASCII").size() == 1, kind + ": search ignores the case of ASCII letters");
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    // Method to check that the summary counts agree with the tasks in the store
+    private void checkCounts(TaskStore store, String what) {
+        int[] counts = new int[Task.Priority.values().length];
+        for (int i = 0; i < store.size(); i++) {
+            counts[store.get(i).getPriority().ordinal()]++;
+        }
+        for (Task.Priority priority : Task.Priority.values()) {
+            check(store.getPriorityCount(priority) == counts[priority.ordinal()],
+                    what + ": " + priority + " count is " + store.getPriorityCount(priority) + ", tasks have " + counts[priority.ordinal()]);
+        }
+    }
+
+    // Method to record a failed check
+    private void check(boolean passed, String what) {
+        if (!passed) {
+            System.out.println("FAILED " + what);
+            failures++;
+        }
+    }
+
+    // Method to list the descriptions of the tasks in order
+    private static List<String> descriptions(TaskStore store) {
+        List<String> descriptions = new ArrayList<>(store.size());
+        for (int i = 0; i < store.size(); i++) {
+            descriptions.add(store.get(i).getDescription());
+        }
+        return descriptions;
+    }
+
+    // Method to open an empty store of a kind in a directory
+    private static TaskStore open(String kind, Path directory) throws IOException {
+        switch (kind) {
+            case "memory":
+                return new TaskList(); // Heap store without a journal
+            case "journal":
+                return TaskList.open(directory);
+            case "columnar":
+                return ColumnarTaskStore.open(directory);
+            default:
+                throw new IllegalArgumentException("Unknown store: " + kind);
+        }
+    }
+
+    // Method to delete the files a store left behind
+    private static void deleteRecursively(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(paths::add); // Children before their directory
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Counts, overdue tasks and next deadlines read from a store in one go, shown by every front end in its own way
+public class TaskSummary {
+    private final int total;
+    private final int[] priorityCounts = new int[Task.Priority.values().length]; // Priority ordinal -> number of tasks
+    private final int completedCount;
+    private final int overdueCount;
+    private final List<Task> overdueTasks; // Empty unless asked for
+    private final List<Task> upcoming; // Next pending tasks due, earliest first
+    private final int recurringCount; // Repeat rules, not occurrences
+    private final long recurringOverdueCount; // Missed occurrences, counted from the rules
+    private final List<Task> missedOccurrences; // Earliest missed occurrences, at most MAX_MISSED and only when asked for
+
+    private static final int MAX_MISSED = 100; // Years of a missed daily chore would flood the output
+
+    private TaskSummary(TaskStore tasks, TaskRecurrences recurrences, boolean withOverdueTasks, int upcomingLimit) {
+        total = tasks.size();
+        for (Task.Priority priority : Task.Priority.values()) {
+            priorityCounts[priority.ordinal()] = tasks.getPriorityCount(priority);
+        }
+        completedCount = tasks.getCompletedCount();
+        overdueTasks = withOverdueTasks ? tasks.getOverdueTasks() : Collections.emptyList();
+        overdueCount = withOverdueTasks ? overdueTasks.size() : tasks.getOverdueCount();
+        List<Task> next = upcomingLimit > 0 ? tasks.getUpcoming(upcomingLimit) : Collections.emptyList();
+        if (recurrences == null) {
+            recurringCount = 0;
+            recurringOverdueCount = 0;
+            missedOccurrences = Collections.emptyList();
+            upcoming = next;
+            return;
+        }
+        int today = (int) LocalDate.now().toEpochDay();
+        recurringCount = recurrences.size();
+        recurringOverdueCount = recurrences.getOverdueCount(today);
+        missedOccurrences = withOverdueTasks ? recurrences.occurrences(Integer.MIN_VALUE, today - 1, MAX_MISSED) : Collections.emptyList();
+        if (upcomingLimit > 0) { // Both lists are earliest first, so the next ones overall are among them
+            List<Task> merged = new ArrayList<>(next);
+            merged.addAll(recurrences.occurrences(today, Integer.MAX_VALUE, upcomingLimit));
+            merged.sort(Comparator.comparingInt(Task::getDeadlineDay));
+            upcoming = merged.size() > upcomingLimit ? new ArrayList<>(merged.subList(0, upcomingLimit)) : merged;
+        } else {
+            upcoming = next;
+        }
+    }
+
+    // Constructor adding up the summaries of several stores, their lists merged by deadline
+    private TaskSummary(List<TaskSummary> parts, int upcomingLimit) {
+        int tasks = 0, completed = 0, overdue = 0, recurring = 0;
+        long missedCount = 0;
+        List<Task> overdueList = new ArrayList<>(), next = new ArrayList<>(), missed = new ArrayList<>();
+        for (TaskSummary part : parts) {
+            tasks += part.total;
+            for (int i = 0; i < priorityCounts.length; i++) {
+                priorityCounts[i] += part.priorityCounts[i];
+            }
+            completed += part.completedCount;
+            overdue += part.overdueCount;
+            overdueList.addAll(part.overdueTasks);
+            next.addAll(part.upcoming);
+            recurring += part.recurringCount;
+            missedCount += part.recurringOverdueCount;
+            missed.addAll(part.missedOccurrences);
+        }
+        next.sort(Comparator.comparingInt(Task::getDeadlineDay)); // Stable, so ties keep the order of the parts
+        missed.sort(Comparator.comparingInt(Task::getDeadlineDay));
+        total = tasks;
+        completedCount = completed;
+        overdueCount = overdue;
+        overdueTasks = overdueList;
+        upcoming = next.size() > upcomingLimit ? new ArrayList<>(next.subList(0, upcomingLimit)) : next;
+        recurringCount = recurring;
+        recurringOverdueCount = missedCount;
+        missedOccurrences = missed.size() > MAX_MISSED ? new ArrayList<>(missed.subList(0, MAX_MISSED)) : missed;
+    }
+
+    // Method to combine summaries read from several stores, such as the workspaces of TaskWorkspaces, with the same limit
+    public static TaskSummary merge(List<TaskSummary> parts, int upcomingLimit) {
+        return new TaskSummary(parts, upcomingLimit);
+    }
+
+    // Method to read a summary of one-off tasks only
+    public static TaskSummary of(TaskStore tasks, boolean withOverdueTasks, int upcomingLimit) {
+        return of(tasks, null, withOverdueTasks, upcomingLimit);
+    }
+
+    // Method to read a summary, the overdue tasks themselves only when asked for since there can be many
+    // Recurring tasks add their occurrences, expanded only as far as the overdue and upcoming lists need
+    public static TaskSummary of(TaskStore tasks, TaskRecurrences recurrences, boolean withOverdueTasks, int upcomingLimit) {
+        long start = TaskMetrics.start();
+        TaskSummary summary = new TaskSummary(tasks, recurrences, withOverdueTasks, upcomingLimit);
+        TaskMetrics.record(TaskMetrics.Operation.SUMMARY, start);
+        return summary;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getPriorityCount(Task.Priority priority) {
+        return priorityCounts[priority.ordinal()];
+    }
+
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    public int getOverdueCount() {
+        return overdueCount;
+    }
+
+    public List<Task> getOverdueTasks() {
+        return overdueTasks;
+    }
+
+    public List<Task> getUpcoming() {
+        return upcoming;
+    }
+
+    public int getRecurringCount() {
+        return recurringCount;
+    }
+
+    public long getRecurringOverdueCount() {
+        return recurringOverdueCount;
+    }
+
+    public List<Task> getMissedOccurrences() {
+        return missedOccurrences;
+    }
+}
@@ -0,0 +1,409 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Bulk import and export of tasks as CSV, JSON lines or the binary task format, chosen by file extension
+public class TaskTransfer {
+    private static final int BINARY_MAGIC = 0x53544D58; // "STMX"
+    private static final int VERSION = 1; // Binary file format version
+    private static final int WINDOW_SIZE = 16 * 1024 * 1024; // Bytes of a text file parsed and added at a time
+    private static final int MIN_SPLIT_SIZE = 256 * 1024; // Text chunks smaller than this are parsed on one thread
+    private static final int MAX_REPORTED_ERRORS = 100; // Rows reported in detail, the rest are only counted
+    private static final String CSV_HEADER = "description,priority,deadline,completed";
+
+    // Outcome of an import: how many tasks were added and which rows were skipped
+    public static class ImportResult {
+        private final int imported;
+        private final int errorCount;
+        private final List<String> errors; // First rows that failed, "Line N: reason"
+
+        ImportResult(int imported, int errorCount, List<String> errors) {
+            this.imported = imported;
+            this.errorCount = errorCount;
+            this.errors = errors;
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    private enum Format { CSV, JSON_LINES, BINARY }
+
+    // Method to add the tasks in a file to a store, rows that are not valid tasks are skipped and reported
+    public static ImportResult importTasks(TaskStore store, Path file) throws IOException {
+        long start = TaskMetrics.start();
+        try {
+            return formatOf(file) == Format.BINARY ? importBinary(store, file) : importText(store, file);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.IMPORT, start);
+        }
+    }
+
+    // Method to import a CSV or JSON lines file a window at a time
+    private static ImportResult importText(TaskStore store, Path file) throws IOException {
+        boolean csv = formatOf(file) == Format.CSV;
+        int imported = 0, errorCount = 0, line = 1;
+        List<String> errors = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] window = new byte[WINDOW_SIZE];
+            int filled = 0;
+            while (true) {
+                int read = in.readNBytes(window, filled, window.length - filled);
+                filled += read;
+                boolean last = read == 0 || filled < window.length;
+                int end = last ? filled : lastNewline(window, filled) + 1;
+                if (end == 0) { // A single row longer than the window
+                    window = Arrays.copyOf(window, window.length * 2);
+                    continue;
+                }
+
+                Chunk chunk = ForkJoinPool.commonPool().invoke(new ParseTask(window, 0, end, csv)); // Rows parsed in parallel, kept in file order
+                store.beginBatch();
+                try {
+                    for (Task task : chunk.tasks) {
+                        store.add(task);
+                    }
+                } finally {
+                    store.endBatch();
+                }
+                imported += chunk.tasks.size();
+                errorCount += chunk.errorCount;
+                for (int i = 0; i < chunk.errorLines.size() && errors.size() < MAX_REPORTED_ERRORS; i++) {
+                    errors.add("Line " + (line + chunk.errorLines.get(i)) + ": " + chunk.errors.get(i));
+                }
+                line += chunk.lines;
+
+                if (last) {
+                    break;
+                }
+                System.arraycopy(window, end, window, 0, filled - end); // Carry the partial row into the next window
+                filled -= end;
+            }
+        }
+        return new ImportResult(imported, errorCount, errors);
+    }
+
+    // Method to write every task in a store to a file, returns the number written
+    public static int exportTasks(TaskStore store, Path file) throws IOException {
+        long start = TaskMetrics.start();
+        try {
+            return formatOf(file) == Format.BINARY ? exportBinary(store, file) : exportText(store, file);
+        } finally {
+            TaskMetrics.record(TaskMetrics.Operation.EXPORT, start);
+        }
+    }
+
+    // Method to write a CSV or JSON lines file
+    private static int exportText(TaskStore store, Path file) throws IOException {
+        Format format = formatOf(file);
+        int count = store.size();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 64 * 1024)) {
+            StringBuilder row = new StringBuilder(128);
+            if (format == Format.CSV) {
+                out.write(CSV_HEADER);
+                out.write('\n');
+            }
+            for (int i = 0; i < count; i++) {
+                Task task = store.get(i);
+                row.setLength(0);
+                if (format == Format.CSV) {
+                    appendCsvField(row, task.getDescription());
+                    row.append(',').append(task.getPriority()).append(',').append(task.getDeadline()).append(',').append(task.isCompleted());
+                } else {
+                    TaskJson.appendTask(row, task, false);
+                }
+                row.append('\n');
+                out.append(row);
+            }
+        }
+        return count;
+    }
+
+    // Method to pick the format from the file extension
+    private static Format formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return Format.CSV;
+        } else if (name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return Format.JSON_LINES;
+        } else if (name.endsWith(".tasks")) {
+            return Format.BINARY;
+        }
+        throw new IllegalArgumentException("Unknown file type, use .csv, .jsonl or .tasks: " + file.getFileName());
+    }
+
+    // Method to find the last line break in the first bytes of a buffer, -1 if there is none
+    private static int lastNewline(byte[] bytes, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Tasks and rejected rows parsed from a run of whole lines
+    private static class Chunk {
+        final List<Task> tasks = new ArrayList<>();
+        final List<Integer> errorLines = new ArrayList<>(); // Line within the chunk of each reported error
+        final List<String> errors = new ArrayList<>();
+        int errorCount;
+        int lines; // Lines in the chunk, used to number the errors of the chunks after it
+
+        // Method to append the chunk that follows this one in the file
+        Chunk append(Chunk next) {
+            tasks.addAll(next.tasks);
+            for (int i = 0; i < next.errorLines.size() && errors.size() < MAX_REPORTED_ERRORS; i++) {
+                errorLines.add(lines + next.errorLines.get(i));
+                errors.add(next.errors.get(i));
+            }
+            errorCount += next.errorCount;
+            lines += next.lines;
+            return this;
+        }
+    }
+
+    // Splits a run of lines in half at a line break until it is small enough to parse directly
+    private static class ParseTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] bytes;
+        private final int start, end; // Starts at a line start, ends at a line end
+        private final boolean csv;
+
+        ParseTask(byte[] bytes, int start, int end, boolean csv) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+            this.csv = csv;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (end - start > MIN_SPLIT_SIZE) {
+                int middle = start + (end - start) / 2;
+                while (middle < end && bytes[middle - 1] != '\n') { // Move to the start of the next line
+                    middle++;
+                }
+                if (middle < end) {
+                    ParseTask second = new ParseTask(bytes, middle, end, csv);
+                    second.fork();
+                    Chunk first = new ParseTask(bytes, start, middle, csv).compute();
+                    return first.append(second.join());
+                }
+            }
+            return parse();
+        }
+
+        // Method to parse every line in the range
+        private Chunk parse() {
+            Chunk chunk = new Chunk();
+            String text = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            int from = 0;
+            while (from < text.length()) {
+                int newline = text.indexOf('\n', from);
+                int to = newline < 0 ? text.length() : newline;
+                String line = text.substring(from, to > from && text.charAt(to - 1) == '\r' ? to - 1 : to);
+                try {
+                    Task task = csv ? parseCsv(line) : parseJson(line);
+                    if (task != null) {
+                        chunk.tasks.add(task);
+                    }
+                } catch (IllegalArgumentException ex) {
+                    if (chunk.errors.size() < MAX_REPORTED_ERRORS) {
+                        chunk.errorLines.add(chunk.lines);
+                        chunk.errors.add(ex.getMessage());
+                    }
+                    chunk.errorCount++;
+                }
+                chunk.lines++;
+                from = to + 1;
+            }
+            return chunk;
+        }
+    }
+
+    // Method to build a task from a CSV row of description, priority, deadline and an optional completed flag
+    private static Task parseCsv(String line) {
+        if (line.isBlank() || line.equals(CSV_HEADER)) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>(4);
+        int i = 0;
+        while (true) {
+            StringBuilder field = new StringBuilder();
+            if (i < line.length() && line.charAt(i) == '"') { // Quoted field, "" stands for one quote
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("Unterminated quoted field.");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected text after quoted field.");
+                }
+            } else {
+                int comma = line.indexOf(',', i);
+                int to = comma < 0 ? line.length() : comma;
+                field.append(line, i, to);
+                i = to;
+            }
+            fields.add(field.toString());
+            if (i >= line.length()) {
+                break;
+            }
+            i++; // Skip the comma
+        }
+        if (fields.size() < 3 || fields.size() > 4) {
+            throw new IllegalArgumentException("Expected description, priority, deadline and optionally completed.");
+        }
+        return newTask(fields.get(0), fields.get(1).trim(), fields.get(2).trim(), fields.size() == 4 ? fields.get(3).trim() : "false");
+    }
+
+    // Method to build a task from a JSON line with description, priority, deadline and optional completed
+    private static Task parseJson(String line) {
+        return line.isBlank() ? null : TaskJson.toTask(TaskJson.parseObject(line));
+    }
+
+    // Method to check the fields the same way the Task constructor does and build the task, also used by TaskJson
+    static Task newTask(String description, String priority, String deadline, String completed) {
+        Task task = new Task(description, Task.Priority.parse(priority), Task.parseDeadline(deadline));
+        if (completed.equalsIgnoreCase("true")) {
+            task.markCompleted();
+        } else if (!completed.equalsIgnoreCase("false") && !completed.isEmpty()) {
+            throw new IllegalArgumentException("Invalid completed value, use true or false.");
+        }
+        return task;
+    }
+
+    // Method to write a CSV field, quoted when it holds a comma, quote or line break
+    private static void appendCsvField(StringBuilder out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c == '\n' || c == '\r' ? ' ' : c); // One task per line
+        }
+        out.append('"');
+    }
+
+    // Method to write the binary format: magic, version and count, then the journal's task records
+    private static int exportBinary(TaskStore store, Path file) throws IOException {
+        int count = store.size();
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+            buffer.putInt(BINARY_MAGIC).putInt(VERSION).putInt(count);
+            for (int i = 0; i < count; i++) {
+                Task task = store.get(i);
+                byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < 9 + description.length) {
+                    writeFully(out, buffer);
+                    if (buffer.capacity() < 9 + description.length) { // Description larger than the buffer
+                        buffer = ByteBuffer.allocate(9 + description.length);
+                    }
+                }
+                TaskJournal.putTask(buffer, task, description);
+            }
+            writeFully(out, buffer);
+        }
+        return count;
+    }
+
+    // Method to read the binary format written by exportBinary, a damaged file stops at the last whole record
+    private static ImportResult importBinary(TaskStore store, Path file) throws IOException {
+        int imported = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(256 * 1024).flip(); // Kept ready to read, starts empty
+            fill(in, buffer);
+            if (buffer.remaining() < 12 || buffer.getInt() != BINARY_MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a task file: " + file);
+            }
+            int count = buffer.getInt();
+            store.beginBatch();
+            try {
+                for (; imported < count; imported++) {
+                    long size = buffer.remaining() < 9 ? 9 : 9L + buffer.getInt(buffer.position() + 5); // Flags, deadline, length and description
+                    if (size > in.size()) { // Length is damaged
+                        return new ImportResult(imported, 1, Collections.singletonList("Record " + (imported + 1) + ": damaged or cut off."));
+                    }
+                    if (buffer.remaining() < size) { // Record not fully read yet
+                        if (size > buffer.capacity()) {
+                            buffer = ByteBuffer.allocate((int) size).put(buffer).flip();
+                        }
+                        fill(in, buffer);
+                    }
+                    Task task;
+                    try {
+                        task = TaskJournal.getTask(buffer);
+                    } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+                        return new ImportResult(imported, 1, Collections.singletonList("Record " + (imported + 1) + ": damaged or cut off."));
+                    }
+                    store.add(task);
+                }
+            } finally {
+                store.endBatch();
+            }
+        }
+        return new ImportResult(imported, 0, Collections.emptyList());
+    }
+
+    // Method to read more of a channel into the free space after a buffer's unread bytes, leaving it ready to read
+    private static void fill(FileChannel in, ByteBuffer buffer) throws IOException {
+        buffer.compact();
+        while (buffer.hasRemaining() && in.read(buffer) > 0) {
+            // Keep reading until the buffer is full or the file ends
+        }
+        buffer.flip();
+    }
+
+    // Method to write out and clear a buffer
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
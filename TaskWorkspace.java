@@ -0,0 +1,29 @@
+// One named task list hosted by TaskWorkspaces, with its own store and recurring tasks
+public class TaskWorkspace {
+    private final String name;
+    private final TaskStore tasks; // Shared between threads, see TaskStore.share
+    private final TaskRecurrences recurrences;
+
+    TaskWorkspace(String name, TaskStore tasks, TaskRecurrences recurrences) {
+        this.name = name;
+        this.tasks = tasks;
+        this.recurrences = recurrences;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TaskStore getTasks() {
+        return tasks;
+    }
+
+    public TaskRecurrences getRecurrences() {
+        return recurrences;
+    }
+
+    // Method to read this workspace's summary, see TaskSummary.of
+    public TaskSummary summarize(boolean withOverdueTasks, int upcomingLimit) {
+        return TaskSummary.of(tasks, recurrences, withOverdueTasks, upcomingLimit);
+    }
+}
@@ -0,0 +1,208 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Named task lists for many people or projects in one process, each a shard with its own store, journal, lock and
+// recurring tasks under workspaces/<name> in the task directory; the default workspace is the directory itself,
+// so tasks saved before workspaces existed stay where they are
+// Summaries and searches over every workspace run one shard per task on the fork/join pool and are merged afterwards,
+// shards share nothing, so they scale with cores as workspaces are added
+public class TaskWorkspaces implements Closeable {
+    public static final String DEFAULT = "default";
+    private static final String DIRECTORY = "workspaces";
+    private static final Pattern NAME = Pattern.compile("[a-z0-9][a-z0-9_-]{0,39}"); // Safe as a directory name everywhere
+
+    // A task found by a search over every workspace
+    public static class Match {
+        private final String workspace;
+        private final Task task;
+        private final double score;
+
+        Match(String workspace, Task task, double score) {
+            this.workspace = workspace;
+            this.task = task;
+            this.score = score;
+        }
+
+        public String getWorkspace() {
+            return workspace;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + workspace + "] " + task;
+        }
+    }
+
+    private final Path root; // Task directory, null when nothing is saved
+    private final ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<>(); // Every workspace, opened or not
+    private final Map<String, TaskWorkspace> opened = new ConcurrentHashMap<>(); // Opened on first use, then kept open
+
+    // Constructor for workspaces that are not saved
+    public TaskWorkspaces() {
+        this(null);
+    }
+
+    private TaskWorkspaces(Path root) {
+        this.root = root;
+        names.add(DEFAULT);
+    }
+
+    // Method to find the workspaces saved in a task directory, none is opened until it is used
+    public static TaskWorkspaces open(Path root) throws IOException {
+        TaskWorkspaces workspaces = new TaskWorkspaces(root);
+        Path directory = root.resolve(DIRECTORY);
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path dir : dirs) {
+                    String name = dir.getFileName().toString();
+                    if (NAME.matcher(name).matches()) {
+                        workspaces.names.add(name);
+                    }
+                }
+            }
+        }
+        return workspaces;
+    }
+
+    // Method to check a workspace name and bring it to the form used as its key, names ignore case
+    public static String normalize(String name) {
+        String key = name.trim().toLowerCase(Locale.ROOT);
+        if (!NAME.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid workspace name: " + name + ". Use up to 40 letters, digits, - and _.");
+        }
+        return key;
+    }
+
+    // Method to get a workspace, opening it or creating it the first time
+    public TaskWorkspace get(String name) throws IOException {
+        return openAll(List.of(normalize(name))).get(0);
+    }
+
+    // Method to check if a workspace exists, saved or opened, without creating it
+    public boolean exists(String name) {
+        return names.contains(normalize(name));
+    }
+
+    // Method to get the names of every workspace, the default one first and the rest sorted
+    public List<String> getNames() {
+        List<String> list = new ArrayList<>();
+        list.add(DEFAULT);
+        for (String name : names) {
+            if (!name.equals(DEFAULT)) {
+                list.add(name);
+            }
+        }
+        return list;
+    }
+
+    // Method to read the summary of each workspace in parallel, in the order of getNames
+    public Map<String, TaskSummary> summarizeEach(boolean withOverdueTasks, int upcomingLimit) throws IOException {
+        List<TaskWorkspace> all = openAll(getNames());
+        List<TaskSummary> summaries = all.parallelStream() // One fork/join task per shard, each takes only its own store's lock
+                .map(workspace -> workspace.summarize(withOverdueTasks, upcomingLimit))
+                .collect(Collectors.toList());
+        Map<String, TaskSummary> byName = new LinkedHashMap<>();
+        for (int i = 0; i < all.size(); i++) {
+            byName.put(all.get(i).getName(), summaries.get(i));
+        }
+        return byName;
+    }
+
+    // Method to read one summary over every workspace, the shards summarized in parallel and added up
+    public TaskSummary summarize(boolean withOverdueTasks, int upcomingLimit) throws IOException {
+        return TaskSummary.merge(new ArrayList<>(summarizeEach(withOverdueTasks, upcomingLimit).values()), upcomingLimit);
+    }
+
+    // Method to find up to limit tasks closest to a query across every workspace, best first
+    // Each shard ranks its own tasks in parallel, and the best of each are merged by score
+    public List<Match> searchRanked(String query, int limit) throws IOException {
+        List<TaskWorkspace> all = openAll(getNames());
+        List<List<Task>> found = all.parallelStream()
+                .map(workspace -> workspace.getTasks().searchRanked(query, limit))
+                .collect(Collectors.toList());
+        FuzzyQuery fuzzy = new FuzzyQuery(query); // Scores again to compare across shards, only the few found
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            for (Task task : found.get(i)) {
+                matches.add(new Match(all.get(i).getName(), task, fuzzy.score(task.getDescription().toLowerCase(Locale.ROOT))));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::getScore).reversed()); // Stable, so ties keep workspace order
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    // Method to save any pending changes in every opened workspace and release them, the first error is thrown
+    @Override
+    public void close() throws IOException {
+        IOException first = null;
+        for (TaskWorkspace workspace : opened.values()) {
+            try {
+                workspace.getTasks().close();
+            } catch (IOException ex) {
+                if (first == null) {
+                    first = ex;
+                }
+            }
+        }
+        opened.clear();
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    // Method to get workspaces by key, opening the ones not open yet in parallel since loading a shard reads its files
+    private List<TaskWorkspace> openAll(List<String> keys) throws IOException {
+        Function<String, TaskWorkspace> get = key -> opened.computeIfAbsent(key, this::load);
+        try {
+            return keys.size() == 1 ? List.of(get.apply(keys.get(0))) : keys.parallelStream().map(get).collect(Collectors.toList());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    // Method to open a shard, called once per workspace
+    private TaskWorkspace load(String key) {
+        TaskWorkspace workspace;
+        if (root == null) {
+            workspace = new TaskWorkspace(key, TaskStore.share(new TaskList()), new TaskRecurrences());
+        } else {
+            Path directory = key.equals(DEFAULT) ? root : root.resolve(DIRECTORY).resolve(key);
+            try {
+                TaskStore tasks = TaskStore.share(TaskStore.open(directory));
+                try {
+                    workspace = new TaskWorkspace(key, tasks, TaskRecurrences.open(directory));
+                } catch (IOException ex) {
+                    tasks.close(); // Let go of the lock, the workspace is not usable
+                    throw ex;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        names.add(key);
+        return workspace;
+    }
+}